@@ -0,0 +1,28 @@
+package htw.webtech.habit_tracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ISO date handling on the request (parse) and response (toString) path
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateBenchmark {
+
+    String text = "2024-06-15";
+    LocalDate date = LocalDate.of(2024, 6, 15);
+
+    @Benchmark
+    public LocalDate parse() {
+        return LocalDate.parse(text);
+    }
+
+    @Benchmark
+    public String format() {
+        return date.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of a range response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntryMappingBenchmark {
+
+    @Param({"1000", "10000"})
+    int size;
+
+    List<HabitEntry> entries;
+
+    @Setup
+    public void setUp() {
+        entries = BenchmarkData.entries(size);
+    }
+
+    @Benchmark
+    public List<HabitEntryController.HabitEntryDTO> toDTO() {
+        List<HabitEntryController.HabitEntryDTO> result = new ArrayList<>(entries.size());
+        for (HabitEntry entry : entries) {
+            result.add(HabitEntryController.toDTO(entry));
+        }
+        return result;
+    }
+
+    /**
+     * Shared fixtures of the in-memory benchmarks
+     */
+    static final class BenchmarkData {
+
+        private BenchmarkData() {
+        }
+
+        static List<Habit> habits(int count) {
+            List<Habit> habits = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Habit habit = new Habit();
+                habit.setId((long) i + 1);
+                habit.setName("Habit " + i);
+                habit.setDescription("Description of habit " + i);
+                habit.setColor("blue");
+                habit.setIcon("💪");
+                habit.setType(i % 2 == 0 ? Habit.HabitType.DAILY : Habit.HabitType.WEEKLY);
+                habit.setTargetPerWeek(3);
+                habit.setCreatedAt(LocalDate.of(2024, 1, 1));
+                habits.add(habit);
+            }
+            return habits;
+        }
+
+        // Ten habits with one entry per day each
+        static List<HabitEntry> entries(int count) {
+            List<Habit> habits = habits(10);
+            LocalDate start = LocalDate.of(2024, 1, 1);
+            List<HabitEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                HabitEntry entry = new HabitEntry(habits.get(i % habits.size()), start.plusDays(i / habits.size()),
+                        i % 3 != 0);
+                entry.setId((long) i + 1);
+                entries.add(entry);
+            }
+            return entries;
+        }
+    }
+}
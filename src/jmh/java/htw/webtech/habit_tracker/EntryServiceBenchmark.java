@@ -0,0 +1,89 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.HabitEntryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Toggle and range reads through the service against an embedded H2 database,
+ * with and without the native upsert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntryServiceBenchmark {
+
+    private static final int HABITS = 20;
+    private static final int DAYS = 365;
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Param({"true", "false"})
+    String nativeUpsert;
+
+    ConfigurableApplicationContext context;
+    HabitEntryService entryService;
+    List<Long> habitIds;
+    int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Command line arguments take precedence over application.properties (PostgreSQL)
+        context = new SpringApplicationBuilder(HabitTrackerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--habit-tracker.entries.native-upsert=" + nativeUpsert);
+        entryService = context.getBean(HabitEntryService.class);
+        HabitRepository habitRepository = context.getBean(HabitRepository.class);
+
+        habitIds = new ArrayList<>();
+        for (int i = 0; i < HABITS; i++) {
+            Habit habit = new Habit();
+            habit.setName("Habit " + i);
+            habit.setColor("blue");
+            habit.setCreatedAt(START);
+            habitIds.add(habitRepository.save(habit).getId());
+        }
+        List<HabitEntryService.EntryChange> changes = new ArrayList<>();
+        for (Long habitId : habitIds) {
+            for (int day = 0; day < DAYS; day++) {
+                changes.add(new HabitEntryService.EntryChange(habitId, START.plusDays(day), day % 3 != 0));
+            }
+        }
+        for (int i = 0; i < changes.size(); i += 500) {
+            entryService.applyBatch(changes.subList(i, Math.min(i + 500, changes.size())));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Alternates between existing rows and a trailing range of new rows
+    @Benchmark
+    public Optional<HabitEntry> toggleEntry() {
+        int n = counter++;
+        Long habitId = habitIds.get(n % HABITS);
+        return entryService.toggleEntry(habitId, START.plusDays((n / HABITS) % (DAYS + 30)));
+    }
+
+    @Benchmark
+    public List<HabitEntry> getEntriesInRangeMonth() {
+        return entryService.getEntriesInRange(START.plusDays(150), START.plusDays(180));
+    }
+}
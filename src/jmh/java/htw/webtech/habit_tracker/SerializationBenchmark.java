@@ -0,0 +1,46 @@
+package htw.webtech.habit_tracker;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import htw.webtech.habit_tracker.model.Habit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Jackson serialization of the largest list responses, with the mapper configured like Spring MVC's
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000"})
+    int size;
+
+    ObjectMapper objectMapper;
+    List<HabitEntryController.HabitEntryDTO> entries;
+    List<Habit> habits;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        entries = EntryMappingBenchmark.BenchmarkData.entries(size).stream()
+                .map(HabitEntryController::toDTO)
+                .collect(Collectors.toList());
+        habits = EntryMappingBenchmark.BenchmarkData.habits(size);
+    }
+
+    @Benchmark
+    public byte[] entryList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entries);
+    }
+
+    @Benchmark
+    public byte[] habitList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(habits);
+    }
+}
@@ -0,0 +1,382 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.HabitEntryService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * HTTP load test: boots the application on H2 with a seeded dataset and drives a mix of
+ * toggle, range and habit list requests from many concurrent clients (one virtual thread each).
+ * <p>
+ * Run with {@code ./gradlew loadTest}; settings are system properties (see {@link Settings}).
+ * By default the platform-thread and virtual-thread modes run one after the other for comparison,
+ * with carrier-thread pinning recorded in virtual mode.
+ * Exits with status 1 if the p99 latency or the error rate exceed their thresholds.
+ */
+public class LoadTest {
+
+    enum Operation { TOGGLE, RANGE, HABITS }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        boolean passed = true;
+        // Each mode gets a fresh application and database, so the runs are comparable
+        for (String mode : settings.modes()) {
+            System.out.printf("%n=== %s threads ===%n", mode);
+            passed &= runMode(mode, settings);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean runMode(String mode, Settings settings) throws Exception {
+        boolean virtual = mode.equals("virtual");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HabitTrackerApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.url=" + settings.datasourceUrl().replace("{mode}", mode),
+                        "--spring.datasource.username=" + settings.datasourceUser(),
+                        "--spring.datasource.password=" + settings.datasourcePassword(),
+                        "--spring.datasource.driver-class-name=",
+                        "--logging.level.root=WARN");
+        try (PinningMonitor pinning = virtual ? PinningMonitor.start(settings.pinnedThreshold()) : null) {
+            List<Long> habitIds = seed(context, settings);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Report report = run(URI.create("http://localhost:" + port), habitIds, settings);
+            report.print(System.out);
+            boolean passed = report.check(settings, System.out);
+            if (pinning != null) {
+                passed &= pinning.check(settings, System.out);
+            }
+            return passed;
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<Long> seed(ConfigurableApplicationContext context, Settings settings) {
+        HabitRepository habitRepository = context.getBean(HabitRepository.class);
+        HabitEntryService entryService = context.getBean(HabitEntryService.class);
+        LocalDate start = settings.today().minusDays(settings.days() - 1);
+
+        List<Long> habitIds = new ArrayList<>();
+        for (int i = 0; i < settings.habits(); i++) {
+            Habit habit = new Habit();
+            habit.setName("Habit " + i);
+            habit.setColor("blue");
+            habit.setCreatedAt(start);
+            habitIds.add(habitRepository.save(habit).getId());
+        }
+        List<HabitEntryService.EntryChange> changes = new ArrayList<>();
+        for (Long habitId : habitIds) {
+            for (int day = 0; day < settings.days(); day++) {
+                if (ThreadLocalRandom.current().nextInt(3) != 0) {
+                    changes.add(new HabitEntryService.EntryChange(habitId, start.plusDays(day), true));
+                }
+            }
+        }
+        for (int i = 0; i < changes.size(); i += 500) {
+            entryService.applyBatch(changes.subList(i, Math.min(i + 500, changes.size())));
+        }
+        System.out.printf("Seeded %d habits, %d entries%n", habitIds.size(), changes.size());
+        return habitIds;
+    }
+
+    private static Report run(URI base, List<Long> habitIds, Settings settings) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            // Warm-up results are discarded
+            runClients(executor, client, base, habitIds, settings, settings.warmup());
+            long started = System.nanoTime();
+            List<Recorder> recorders = runClients(executor, client, base, habitIds, settings, settings.duration());
+            return new Report(recorders, System.nanoTime() - started);
+        }
+    }
+
+    private static List<Recorder> runClients(ExecutorService executor, HttpClient client, URI base,
+            List<Long> habitIds, Settings settings, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Recorder>> futures = new ArrayList<>();
+        for (int i = 0; i < settings.clients(); i++) {
+            futures.add(executor.submit(() -> {
+                Recorder recorder = new Recorder();
+                while (System.nanoTime() < deadline) {
+                    Operation operation = settings.pick(ThreadLocalRandom.current().nextInt(settings.totalWeight()));
+                    HttpRequest request = request(base, operation, habitIds, settings);
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        ok = response.statusCode() < 400;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    recorder.record(operation, System.nanoTime() - start, ok);
+                }
+                return recorder;
+            }));
+        }
+        List<Recorder> recorders = new ArrayList<>();
+        for (Future<Recorder> future : futures) {
+            recorders.add(future.get());
+        }
+        return recorders;
+    }
+
+    private static HttpRequest request(URI base, Operation operation, List<Long> habitIds, Settings settings) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate today = settings.today();
+        return switch (operation) {
+            case TOGGLE -> {
+                Long habitId = habitIds.get(random.nextInt(habitIds.size()));
+                LocalDate date = today.minusDays(random.nextInt(settings.toggleDays()));
+                yield HttpRequest.newBuilder(base.resolve("/api/entries/toggle"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"habitId\":" + habitId + ",\"date\":\"" + date + "\"}"))
+                        .build();
+            }
+            case RANGE -> {
+                LocalDate end = today.minusDays(random.nextInt(settings.days()));
+                LocalDate start = end.minusDays(settings.rangeDays() - 1);
+                yield HttpRequest.newBuilder(base.resolve("/api/entries/range?startDate=" + start + "&endDate=" + end))
+                        .GET()
+                        .build();
+            }
+            case HABITS -> HttpRequest.newBuilder(base.resolve("/api/habits")).GET().build();
+        };
+    }
+
+    /**
+     * Load test settings, read from loadtest.* system properties
+     */
+    record Settings(List<String> modes, int clients, Duration warmup, Duration duration, Map<Operation, Integer> mix,
+            int habits, int days, int toggleDays, int rangeDays, double maxP99Millis, double maxErrorRate,
+            String datasourceUrl, String datasourceUser, String datasourcePassword, Duration pinnedThreshold,
+            boolean failOnPinning, LocalDate today) {
+
+        static Settings fromSystemProperties() {
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            // e.g. toggle=60,range=30,habits=10
+            for (String part : System.getProperty("loadtest.mix", "toggle=60,range=30,habits=10").split(",")) {
+                String[] pair = part.trim().split("=");
+                mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+            }
+            return new Settings(
+                    // platform, virtual or both (compared side by side)
+                    Arrays.stream(System.getProperty("loadtest.modes", "platform,virtual").split(","))
+                            .map(String::trim)
+                            .toList(),
+                    Integer.getInteger("loadtest.clients", 200),
+                    Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 5)),
+                    Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 30)),
+                    mix,
+                    Integer.getInteger("loadtest.habits", 20),
+                    Integer.getInteger("loadtest.days", 365),
+                    Integer.getInteger("loadtest.toggle-days", 7),
+                    Integer.getInteger("loadtest.range-days", 31),
+                    Double.parseDouble(System.getProperty("loadtest.max-p99-ms", "250")),
+                    Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.001")),
+                    // {mode} keeps the H2 databases of the runs apart; point it at PostgreSQL for realistic numbers
+                    System.getProperty("loadtest.datasource-url", "jdbc:h2:mem:loadtest-{mode};DB_CLOSE_DELAY=-1"),
+                    System.getProperty("loadtest.datasource-user", "sa"),
+                    System.getProperty("loadtest.datasource-password", ""),
+                    Duration.ofMillis(Integer.getInteger("loadtest.pinned-threshold-ms", 1)),
+                    Boolean.getBoolean("loadtest.fail-on-pinning"),
+                    LocalDate.now());
+        }
+
+        int totalWeight() {
+            return mix.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        Operation pick(int value) {
+            for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+                value -= entry.getValue();
+                if (value < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("Empty operation mix");
+        }
+    }
+
+    /**
+     * Records carrier-thread pinning (a virtual thread blocking inside synchronized or native
+     * code) through JFR, grouped by the frame that pinned, e.g. a JDBC driver or Hibernate lock.
+     */
+    static final class PinningMonitor implements AutoCloseable {
+
+        private final RecordingStream stream = new RecordingStream();
+        private final Map<String, Integer> sites = new ConcurrentHashMap<>();
+
+        static PinningMonitor start(Duration threshold) {
+            PinningMonitor monitor = new PinningMonitor();
+            monitor.stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+            monitor.stream.onEvent("jdk.VirtualThreadPinned", event -> monitor.sites.merge(site(event), 1, Integer::sum));
+            monitor.stream.startAsync();
+            return monitor;
+        }
+
+        // First frame outside the JDK, which is where the blocking call was made
+        private static String site(RecordedEvent event) {
+            if (event.getStackTrace() == null) {
+                return "unknown";
+            }
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                String type = frame.getMethod().getType().getName();
+                if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                    return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+                }
+            }
+            return "JDK";
+        }
+
+        boolean check(Settings settings, PrintStream out) {
+            int total = sites.values().stream().mapToInt(Integer::intValue).sum();
+            out.printf("Pinned virtual threads (>= %d ms): %d%n", settings.pinnedThreshold().toMillis(), total);
+            sites.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(10)
+                    .forEach(site -> out.printf("  %6d  %s%n", site.getValue(), site.getKey()));
+            if (total > 0 && settings.failOnPinning()) {
+                out.println("FAIL carrier threads were pinned");
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            stream.close();
+        }
+    }
+
+    // Per-client latencies, merged after the run so the hot loop is not synchronized
+    static final class Recorder {
+
+        private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> errors = new EnumMap<>(Operation.class);
+
+        void record(Operation operation, long nanos, boolean ok) {
+            int count = counts.getOrDefault(operation, 0);
+            long[] values = latencies.computeIfAbsent(operation, key -> new long[1024]);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                latencies.put(operation, values);
+            }
+            values[count] = nanos;
+            counts.put(operation, count + 1);
+            if (!ok) {
+                errors.merge(operation, 1, Integer::sum);
+            }
+        }
+    }
+
+    static final class Report {
+
+        private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> errors = new EnumMap<>(Operation.class);
+        private final long elapsedNanos;
+
+        Report(List<Recorder> recorders, long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+            for (Operation operation : Operation.values()) {
+                int total = recorders.stream().mapToInt(r -> r.counts.getOrDefault(operation, 0)).sum();
+                long[] merged = new long[total];
+                int offset = 0;
+                for (Recorder recorder : recorders) {
+                    int count = recorder.counts.getOrDefault(operation, 0);
+                    if (count > 0) {
+                        System.arraycopy(recorder.latencies.get(operation), 0, merged, offset, count);
+                        offset += count;
+                    }
+                    errors.merge(operation, recorder.errors.getOrDefault(operation, 0), Integer::sum);
+                }
+                Arrays.sort(merged);
+                latencies.put(operation, merged);
+            }
+        }
+
+        void print(PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            out.printf("%n%-8s %9s %10s %9s %9s %9s %9s %9s%n",
+                    "op", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+            latencies.forEach((operation, values) -> out.printf("%-8s %9d %10.1f %8.2f%% %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.name().toLowerCase(),
+                    values.length,
+                    values.length / seconds,
+                    values.length > 0 ? 100.0 * errors.get(operation) / values.length : 0.0,
+                    millis(percentile(values, 0.50)),
+                    millis(percentile(values, 0.95)),
+                    millis(percentile(values, 0.99)),
+                    millis(values.length > 0 ? values[values.length - 1] : 0)));
+            out.printf("total    %9d %10.1f%n", totalRequests(), totalRequests() / seconds);
+        }
+
+        boolean check(Settings settings, PrintStream out) {
+            boolean passed = true;
+            for (Map.Entry<Operation, long[]> entry : latencies.entrySet()) {
+                double p99 = millis(percentile(entry.getValue(), 0.99));
+                if (p99 > settings.maxP99Millis()) {
+                    out.printf("FAIL %s p99 %.2f ms > %.2f ms%n", entry.getKey(), p99, settings.maxP99Millis());
+                    passed = false;
+                }
+            }
+            long totalErrors = errors.values().stream().mapToLong(Integer::longValue).sum();
+            double errorRate = totalRequests() > 0 ? (double) totalErrors / totalRequests() : 1.0;
+            if (errorRate > settings.maxErrorRate()) {
+                out.printf("FAIL error rate %.4f > %.4f%n", errorRate, settings.maxErrorRate());
+                passed = false;
+            }
+            out.println(passed ? "PASSED" : "FAILED");
+            return passed;
+        }
+
+        private long totalRequests() {
+            return latencies.values().stream().mapToLong(values -> values.length).sum();
+        }
+
+        // Nearest-rank percentile of sorted values
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(rank - 1, 0)];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
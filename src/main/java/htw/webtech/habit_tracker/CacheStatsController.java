@@ -0,0 +1,46 @@
+package htw.webtech.habit_tracker;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // Get hit/miss statistics of the in-memory caches
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsDTO>> getStats() {
+        List<CacheStatsDTO> result = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                CacheStats stats = caffeineCache.getNativeCache().stats();
+                result.add(new CacheStatsDTO(
+                        name,
+                        caffeineCache.getNativeCache().estimatedSize(),
+                        stats.hitCount(),
+                        stats.missCount(),
+                        stats.hitRate(),
+                        stats.evictionCount()));
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // DTOs
+    public record CacheStatsDTO(String name, long size, long hits, long misses, double hitRate, long evictions) {
+    }
+}
@@ -0,0 +1,56 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.service.DashboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private static final int MAX_DAYS = 366;
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    // Get all habits with a compact completion string per habit (one char per day, '1' = completed)
+    @GetMapping
+    public ResponseEntity<?> getDashboard(@RequestParam String start, @RequestParam String end) {
+        LocalDate startDate = LocalDate.parse(start);
+        LocalDate endDate = LocalDate.parse(end);
+        if (endDate.isBefore(startDate) || ChronoUnit.DAYS.between(startDate, endDate) >= MAX_DAYS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Range must span between 1 and " + MAX_DAYS + " days"));
+        }
+
+        List<DashboardHabitDTO> habits = dashboardService.getDashboard(startDate, endDate).stream()
+                .map(row -> new DashboardHabitDTO(
+                        row.habit().getId(),
+                        row.habit().getName(),
+                        row.habit().getColor(),
+                        row.habit().getIcon(),
+                        row.habit().getType(),
+                        row.habit().getTargetPerWeek(),
+                        row.days()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new DashboardDTO(start, end, habits));
+    }
+
+    // DTOs
+    public record DashboardDTO(String start, String end, List<DashboardHabitDTO> habits) {
+    }
+
+    public record DashboardHabitDTO(Long id, String name, String color, String icon, Habit.HabitType type,
+            Integer targetPerWeek, String days) {
+    }
+}
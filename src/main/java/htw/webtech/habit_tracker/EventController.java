@@ -0,0 +1,35 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.service.ChangeEventBroadcaster;
+import htw.webtech.habit_tracker.service.OwnerContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+public class EventController {
+
+    private final ChangeEventBroadcaster broadcaster;
+
+    public EventController(ChangeEventBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    // Server-Sent Events stream of entry and habit changes (event names: entry, entry-deleted, habit, habit-deleted)
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe() {
+        return broadcaster.subscribe(OwnerContext.current())
+                .map(emitter -> ResponseEntity.ok()
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        // Stops reverse proxies (nginx) from buffering the stream
+                        .header("X-Accel-Buffering", "no")
+                        .body(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .build());
+    }
+}
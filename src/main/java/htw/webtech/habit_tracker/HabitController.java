@@ -1,12 +1,22 @@
 package htw.webtech.habit_tracker;
 
 import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.service.DashboardService;
 import htw.webtech.habit_tracker.service.HabitService;
+import htw.webtech.habit_tracker.service.HabitStatsService;
+import htw.webtech.habit_tracker.service.WeeklyProgressService;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,15 +25,71 @@ import java.util.Map;
 @RequestMapping("/api/habits")
 public class HabitController {
 
+    private static final Logger log = LoggerFactory.getLogger(HabitController.class);
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_WEEKS_DAYS = 366;
+
     private final HabitService habitService;
+    private final HabitStatsService statsService;
+    private final WeeklyProgressService weeklyProgressService;
+    private final DashboardService dashboardService;
 
-    public HabitController(HabitService habitService) {
+    public HabitController(HabitService habitService, HabitStatsService statsService,
+            WeeklyProgressService weeklyProgressService, DashboardService dashboardService) {
         this.habitService = habitService;
+        this.statsService = statsService;
+        this.weeklyProgressService = weeklyProgressService;
+        this.dashboardService = dashboardService;
     }
 
+    // Without limit all habits are returned as a plain list; with limit a keyset page on id
     @GetMapping
-    public List<Habit> getHabits() {
-        return habitService.getAllHabits();
+    public ResponseEntity<?> getHabits(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long after) {
+        if (limit == null) {
+            return ResponseEntity.ok(habitService.getAllHabits());
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        Slice<Habit> page = habitService.getHabitsAfter(after, limit);
+        List<Habit> items = page.getContent();
+        String nextCursor = page.hasNext() ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+        return ResponseEntity.ok(new HabitPageDTO(items, nextCursor));
+    }
+
+    // Completions per ISO week of all habits; weeks overlapping the range are included completely
+    @GetMapping("/weeks")
+    public ResponseEntity<?> getAllHabitWeeks(@RequestParam String from, @RequestParam String to) {
+        LocalDate startDate = LocalDate.parse(from);
+        LocalDate endDate = LocalDate.parse(to);
+        if (!isValidWeeksRange(startDate, endDate)) {
+            return weeksRangeError();
+        }
+
+        List<HabitWeeksDTO> habits = weeklyProgressService.getAllWeeks(startDate, endDate).stream()
+                .map(HabitWeeksDTO::from)
+                .toList();
+        return ResponseEntity.ok(habits);
+    }
+
+    // Year heatmap: per habit a base64 bitset, bit n (LSB first within each byte) = day n + 1 completed
+    @GetMapping("/heatmap")
+    public ResponseEntity<?> getHeatmap(@RequestParam int year) {
+        if (year < Year.MIN_VALUE || year > Year.MAX_VALUE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid year"));
+        }
+
+        Year heatmapYear = Year.of(year);
+        Base64.Encoder encoder = Base64.getEncoder();
+        List<HeatmapHabitDTO> habits = dashboardService.getHeatmap(heatmapYear).stream()
+                .map(row -> new HeatmapHabitDTO(row.habitId(), encoder.encodeToString(row.bits())))
+                .toList();
+        return ResponseEntity.ok(new HeatmapDTO(year, heatmapYear.length(), habits));
     }
 
     @GetMapping("/{id}")
@@ -33,6 +99,33 @@ public class HabitController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<HabitStatsDTO> getHabitStats(@PathVariable Long id) {
+        return statsService.getSummary(id, LocalDate.now())
+                .map(summary -> ResponseEntity.ok(new HabitStatsDTO(
+                        summary.habitId(),
+                        summary.type(),
+                        summary.currentStreak(),
+                        summary.longestStreak(),
+                        summary.totalCompletions(),
+                        summary.lastMetPeriod() != null ? summary.lastMetPeriod().toString() : null)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/weeks")
+    public ResponseEntity<?> getHabitWeeks(@PathVariable Long id, @RequestParam String from,
+            @RequestParam String to) {
+        LocalDate startDate = LocalDate.parse(from);
+        LocalDate endDate = LocalDate.parse(to);
+        if (!isValidWeeksRange(startDate, endDate)) {
+            return weeksRangeError();
+        }
+
+        return weeklyProgressService.getWeeks(id, startDate, endDate)
+                .<ResponseEntity<?>>map(weeks -> ResponseEntity.ok(HabitWeeksDTO.from(weeks)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping
     public ResponseEntity<?> createHabit(@Valid @RequestBody Habit habit) {
         try {
@@ -46,8 +139,7 @@ public class HabitController {
             Habit saved = habitService.createHabit(habit);
             return ResponseEntity.status(HttpStatus.CREATED).body(saved);
         } catch (Exception e) {
-            System.err.println("Error creating habit: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error creating habit", e);
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to create habit: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
@@ -68,4 +160,40 @@ public class HabitController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    private static boolean isValidWeeksRange(LocalDate startDate, LocalDate endDate) {
+        return !endDate.isBefore(startDate) && ChronoUnit.DAYS.between(startDate, endDate) < MAX_WEEKS_DAYS;
+    }
+
+    private static ResponseEntity<?> weeksRangeError() {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "Range must span between 1 and " + MAX_WEEKS_DAYS + " days"));
+    }
+
+    // DTOs
+    public record HabitPageDTO(List<Habit> items, String nextCursor) {
+    }
+
+    public record HabitStatsDTO(Long habitId, Habit.HabitType type, int currentStreak, int longestStreak,
+            int totalCompletions, String lastMetPeriod) {
+    }
+
+    public record HeatmapDTO(int year, int days, List<HeatmapHabitDTO> habits) {
+    }
+
+    public record HeatmapHabitDTO(Long habitId, String bits) {
+    }
+
+    public record WeekDTO(String weekStart, int completed, boolean targetMet) {
+    }
+
+    public record HabitWeeksDTO(Long habitId, Habit.HabitType type, int target, List<WeekDTO> weeks) {
+
+        static HabitWeeksDTO from(WeeklyProgressService.HabitWeeks habitWeeks) {
+            List<WeekDTO> weeks = habitWeeks.weeks().stream()
+                    .map(week -> new WeekDTO(week.weekStart().toString(), week.completed(), week.targetMet()))
+                    .toList();
+            return new HabitWeeksDTO(habitWeeks.habitId(), habitWeeks.type(), habitWeeks.target(), weeks);
+        }
+    }
 }
@@ -1,33 +1,100 @@
 package htw.webtech.habit_tracker;
 
 import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.service.DataVersion;
 import htw.webtech.habit_tracker.service.HabitEntryService;
+import htw.webtech.habit_tracker.service.OwnerContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/entries")
 public class HabitEntryController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Ranges are per owner, so they are only cached privately; ranges that can still change are
+    // revalidated on every use with the ETag
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final HabitEntryService entryService;
+    private final DataVersion dataVersion;
+    // Ranges ending before the edit window only change when a habit is deleted
+    private final CacheControl closedRange;
 
-    public HabitEntryController(HabitEntryService entryService) {
+    public HabitEntryController(HabitEntryService entryService, DataVersion dataVersion,
+            @Value("${habit-tracker.entries.closed-range-max-age:365d}") Duration closedRangeMaxAge) {
         this.entryService = entryService;
+        this.dataVersion = dataVersion;
+        this.closedRange = CacheControl.maxAge(closedRangeMaxAge).cachePrivate();
     }
 
-    // Get all entries for a specific habit
+    // Get all entries for a specific habit; with limit a keyset page on (date, id)
     @GetMapping("/habit/{habitId}")
-    public ResponseEntity<List<HabitEntryDTO>> getEntriesForHabit(@PathVariable Long habitId) {
-        List<HabitEntry> entries = entryService.getEntriesForHabit(habitId);
-        List<HabitEntryDTO> dtos = entries.stream()
-                .map(this::toDTO)
+    public ResponseEntity<?> getEntriesForHabit(
+            @PathVariable Long habitId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        if (limit == null) {
+            List<HabitEntry> entries = entryService.getEntriesForHabit(habitId);
+            List<HabitEntryDTO> dtos = entries.stream()
+                    .map(HabitEntryController::toDTO)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(dtos);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        // Cursor format: <date>:<id> of the last entry of the previous page
+        LocalDate afterDate = null;
+        Long afterId = null;
+        if (after != null) {
+            int separator = after.indexOf(':');
+            try {
+                afterDate = LocalDate.parse(after.substring(0, separator));
+                afterId = Long.parseLong(after.substring(separator + 1));
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+        }
+
+        Slice<HabitEntry> page = entryService.getEntriesForHabitAfter(habitId, afterDate, afterId, limit);
+        List<HabitEntryDTO> items = page.getContent().stream()
+                .map(HabitEntryController::toDTO)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+        String nextCursor = null;
+        if (page.hasNext()) {
+            HabitEntryDTO last = items.get(items.size() - 1);
+            nextCursor = last.date() + ":" + last.id();
+        }
+        return ResponseEntity.ok(new EntryPageDTO(items, nextCursor));
     }
 
     // Get entries for a habit within a date range
@@ -35,14 +102,11 @@ public class HabitEntryController {
     public ResponseEntity<List<HabitEntryDTO>> getEntriesForHabitInRange(
             @PathVariable Long habitId,
             @RequestParam String startDate,
-            @RequestParam String endDate) {
+            @RequestParam String endDate,
+            WebRequest webRequest) {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
-        List<HabitEntry> entries = entryService.getEntriesForHabitInRange(habitId, start, end);
-        List<HabitEntryDTO> dtos = entries.stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+        return conditionalRange(webRequest, end, () -> entryService.getEntriesForHabitInRange(habitId, start, end));
     }
 
     // Get all entries for a specific date (all habits)
@@ -51,7 +115,7 @@ public class HabitEntryController {
         LocalDate localDate = LocalDate.parse(date);
         List<HabitEntry> entries = entryService.getEntriesForDate(localDate);
         List<HabitEntryDTO> dtos = entries.stream()
-                .map(this::toDTO)
+                .map(HabitEntryController::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
@@ -60,14 +124,47 @@ public class HabitEntryController {
     @GetMapping("/range")
     public ResponseEntity<List<HabitEntryDTO>> getEntriesInRange(
             @RequestParam String startDate,
-            @RequestParam String endDate) {
+            @RequestParam String endDate,
+            WebRequest webRequest) {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
-        List<HabitEntry> entries = entryService.getEntriesInRange(start, end);
-        List<HabitEntryDTO> dtos = entries.stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+        return conditionalRange(webRequest, end, () -> entryService.getEntriesInRange(start, end));
+    }
+
+    // Export all entries within a date range as NDJSON or CSV, streamed row by row
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEntries(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Streamed on an async thread, which does not inherit the request's owner
+        long ownerId = OwnerContext.current();
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write("id,habitId,date,completed\n");
+            }
+            try {
+                OwnerContext.runAs(ownerId,
+                        () -> entryService.exportEntries(start, end, row -> writeRow(writer, row, csv)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"entries-" + start + "-" + end + (csv ? ".csv" : ".ndjson") + "\"")
+                .body(body);
     }
 
     // Toggle a habit entry (check/uncheck)
@@ -88,6 +185,33 @@ public class HabitEntryController {
                 .orElseGet(() -> ResponseEntity.badRequest().body(Map.of("error", "Habit not found")));
     }
 
+    // Set many entries in one request (e.g. a week-grid edit), one status per item
+    @PostMapping("/batch")
+    public ResponseEntity<?> setEntries(@RequestBody List<SetEntryRequest> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Batch must not contain more than " + MAX_BATCH_SIZE + " entries"));
+        }
+
+        List<HabitEntryService.EntryChange> changes = requests.stream()
+                .map(request -> request == null
+                        ? new HabitEntryService.EntryChange(null, null, false)
+                        : new HabitEntryService.EntryChange(request.habitId, parseDateOrNull(request.date),
+                                request.completed))
+                .collect(Collectors.toList());
+        List<HabitEntryService.BatchResult> results = entryService.applyBatch(changes);
+
+        List<BatchItemResult> items = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            HabitEntryService.BatchResult result = results.get(i);
+            items.add(new BatchItemResult(
+                    i,
+                    result.status().name(),
+                    result.entry() != null ? toDTO(result.entry()) : null));
+        }
+        return ResponseEntity.ok(items);
+    }
+
     // Delete an entry
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteEntry(@PathVariable Long id) {
@@ -98,7 +222,7 @@ public class HabitEntryController {
     }
 
     // DTO for response (avoids circular reference and lazy loading issues)
-    private HabitEntryDTO toDTO(HabitEntry entry) {
+    static HabitEntryDTO toDTO(HabitEntry entry) {
         return new HabitEntryDTO(
                 entry.getId(),
                 entry.getHabit().getId(),
@@ -106,10 +230,61 @@ public class HabitEntryController {
                 entry.isCompleted());
     }
 
+    // Answers If-None-Match from the owner's data version alone, so unchanged data costs a
+    // single index lookup instead of the range query
+    private ResponseEntity<List<HabitEntryDTO>> conditionalRange(WebRequest webRequest, LocalDate end,
+            Supplier<List<HabitEntry>> loader) {
+        String etag = dataVersion.etag();
+        CacheControl cacheControl = entryService.isEditable(end) ? REVALIDATE : closedRange;
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        List<HabitEntryDTO> dtos = loader.get().stream()
+                .map(HabitEntryController::toDTO)
+                .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(cacheControl);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(dtos);
+    }
+
+    // All fields are numbers, booleans or ISO dates, so no escaping is needed
+    private static void writeRow(Writer writer, HabitEntryRepository.EntryRow row, boolean csv) {
+        try {
+            if (csv) {
+                writer.write(row.getId() + "," + row.getHabitId() + "," + row.getDate() + "," + row.isCompleted() + "\n");
+            } else {
+                writer.write("{\"id\":" + row.getId() + ",\"habitId\":" + row.getHabitId()
+                        + ",\"date\":\"" + row.getDate() + "\",\"completed\":" + row.isCompleted() + "}\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LocalDate parseDateOrNull(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     // DTOs
     public record HabitEntryDTO(Long id, Long habitId, String date, boolean completed) {
     }
 
+    public record EntryPageDTO(List<HabitEntryDTO> items, String nextCursor) {
+    }
+
+    public record BatchItemResult(int index, String status, HabitEntryDTO entry) {
+    }
+
     public static class ToggleRequest {
         public Long habitId;
         public String date;
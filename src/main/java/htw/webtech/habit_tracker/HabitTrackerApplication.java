@@ -2,8 +2,14 @@ package htw.webtech.habit_tracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+// Outside the transaction advice, so cache evictions happen after commit
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableScheduling
 public class HabitTrackerApplication {
 
 	public static void main(String[] args) {
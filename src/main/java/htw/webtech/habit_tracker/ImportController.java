@@ -0,0 +1,101 @@
+package htw.webtech.habit_tracker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import htw.webtech.habit_tracker.service.EntryImportService;
+import htw.webtech.habit_tracker.service.OwnerContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    private final EntryImportService importService;
+    private final ObjectMapper objectMapper;
+
+    public ImportController(EntryImportService importService, ObjectMapper objectMapper) {
+        this.importService = importService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Import entries from a CSV or NDJSON request body; answers with NDJSON lines as the import
+    // runs: {"line":..,"error":..} per rejected row, the running totals after every chunk, and
+    // the final totals with "done":true. ignoreEditWindow=true also writes days before the edit window
+    @PostMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importEntries(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean ignoreEditWindow,
+            InputStream body) {
+        EntryImportService.Format importFormat;
+        if ("csv".equalsIgnoreCase(format)) {
+            importFormat = EntryImportService.Format.CSV;
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            importFormat = EntryImportService.Format.NDJSON;
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Read and written on an async thread, which does not inherit the request's owner
+        long ownerId = OwnerContext.current();
+        StreamingResponseBody response = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            EntryImportService.Listener listener = new EntryImportService.Listener() {
+                @Override
+                public void onError(EntryImportService.RowError error) {
+                    writeLine(writer, error, false);
+                }
+
+                @Override
+                public void onProgress(EntryImportService.Progress progress) {
+                    writeLine(writer, progress, true);
+                }
+            };
+            EntryImportService.Progress result;
+            try {
+                result = OwnerContext.callAs(ownerId, () -> {
+                    try {
+                        return importService.importEntries(reader, importFormat, ignoreEditWindow, listener);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writeLine(writer, new ImportResult(result.processed(), result.imported(), result.unchanged(),
+                    result.failed(), true), true);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(response);
+    }
+
+    // Progress lines are flushed right away, so clients see how far the import got
+    private void writeLine(Writer writer, Object line, boolean flush) {
+        try {
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.write('\n');
+            if (flush) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record ImportResult(long processed, long imported, long unchanged, long failed, boolean done) {
+    }
+}
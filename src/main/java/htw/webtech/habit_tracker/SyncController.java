@@ -0,0 +1,50 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.Tombstone;
+import htw.webtech.habit_tracker.service.SyncService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    // Get changes after the given cursor; without cursor a full snapshot is returned
+    @GetMapping
+    public ResponseEntity<SyncResponse> sync(@RequestParam(required = false) Long since) {
+        SyncService.Changes changes = syncService.changesSince(since);
+        return ResponseEntity.ok(new SyncResponse(
+                changes.cursor(),
+                changes.full(),
+                changes.habits(),
+                changes.entries().stream()
+                        .map(HabitEntryController::toDTO)
+                        .collect(Collectors.toList()),
+                deletedIds(changes.tombstones(), Tombstone.EntityType.HABIT),
+                deletedIds(changes.tombstones(), Tombstone.EntityType.ENTRY)));
+    }
+
+    private List<Long> deletedIds(List<Tombstone> tombstones, Tombstone.EntityType type) {
+        return tombstones.stream()
+                .filter(tombstone -> tombstone.getEntityType() == type)
+                .map(Tombstone::getEntityId)
+                .collect(Collectors.toList());
+    }
+
+    // DTOs
+    // Entries of a deleted habit are not listed separately in deletedEntryIds
+    public record SyncResponse(long cursor, boolean full, List<Habit> habits,
+            List<HabitEntryController.HabitEntryDTO> entries, List<Long> deletedHabitIds,
+            List<Long> deletedEntryIds) {
+    }
+}
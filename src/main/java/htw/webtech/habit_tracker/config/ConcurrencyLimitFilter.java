@@ -0,0 +1,114 @@
+package htw.webtech.habit_tracker.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps concurrent API requests at the size of the connection pool when requests run on
+ * virtual threads. Without it, thousands of virtual threads queue inside Hikari and time
+ * out there; here they wait briefly and are rejected with 503 instead.
+ * <p>
+ * Streamed responses (export, import) keep their permit until async processing completes.
+ * The event stream holds no connection while open and is not limited.
+ * <p>
+ * With platform threads the Tomcat thread pool already bounds concurrency.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(
+            @Value("${habit-tracker.concurrency.max-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxRequests,
+            @Value("${habit-tracker.concurrency.acquire-timeout-ms:2000}") long acquireTimeoutMillis,
+            MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxRequests, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.rejected = Counter.builder("concurrency.limit.rejected")
+                .description("API requests rejected because no permit became free in time")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.limit.waiting", permits, Semaphore::getQueueLength)
+                .description("API requests waiting for a permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/api/") || uri.startsWith("/api/events");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Server busy, try again later\"}");
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    // onComplete also follows a timeout or error; a restarted async cycle registers again
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permits.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
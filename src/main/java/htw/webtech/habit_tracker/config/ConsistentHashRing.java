@@ -0,0 +1,59 @@
+package htw.webtech.habit_tracker.config;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Maps owner ids to shard names. Every shard is placed on the ring at many points
+ * (virtual nodes); an owner belongs to the first shard point at or after its own hash.
+ * Adding a shard therefore only moves the owners that now hash to the new shard's points,
+ * about 1/N of them, instead of reshuffling everyone as owner % N would.
+ */
+public class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final List<String> shards;
+
+    public ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.shards = List.copyOf(shards);
+        for (String shard : this.shards) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash(shard + "#" + node), shard);
+            }
+        }
+    }
+
+    /**
+     * Shard that stores the data of the given owner
+     */
+    public String shardFor(long ownerId) {
+        SortedMap<Long, String> tail = ring.tailMap(hash(Long.toString(ownerId)));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    // First 8 bytes of MD5: stable across JVMs and evenly spread, unlike String.hashCode
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest, 0, Long.BYTES).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
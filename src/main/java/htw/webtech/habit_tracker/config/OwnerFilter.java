@@ -0,0 +1,60 @@
+package htw.webtech.habit_tracker.config;
+
+import htw.webtech.habit_tracker.service.OwnerContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the owner of an API request from the X-User-Id header (until there is real
+ * authentication); requests without the header work on {@link OwnerContext#DEFAULT_OWNER}.
+ * Runs first, so the owner is known before any filter or handler touches the database.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OwnerFilter extends OncePerRequestFilter {
+
+    public static final String OWNER_HEADER = "X-User-Id";
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(OWNER_HEADER);
+        long ownerId;
+        try {
+            ownerId = header != null ? Long.parseLong(header.trim()) : OwnerContext.DEFAULT_OWNER;
+        } catch (NumberFormatException e) {
+            ownerId = -1;
+        }
+        if (ownerId < 0) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Invalid " + OWNER_HEADER + "\"}");
+            return;
+        }
+
+        // Responses (and their ETags) differ per owner
+        response.addHeader(HttpHeaders.VARY, OWNER_HEADER);
+        OwnerContext.set(ownerId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            OwnerContext.clear();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package htw.webtech.habit_tracker.config;
+
+import htw.webtech.habit_tracker.service.OwnerContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Supplies the current owner as Hibernate tenant id, which scopes every query on entities
+ * with a @TenantId column to that owner. Native SQL is not covered and filters owner_id itself.
+ */
+@Component
+public class OwnerTenantResolver implements CurrentTenantIdentifierResolver<Long>, HibernatePropertiesCustomizer {
+
+    @Override
+    public Long resolveCurrentTenantIdentifier() {
+        return OwnerContext.current();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    // Maintenance jobs running as ALL_OWNERS see every owner's rows
+    @Override
+    public boolean isRoot(Long tenantId) {
+        return tenantId == OwnerContext.ALL_OWNERS;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+}
@@ -0,0 +1,52 @@
+package htw.webtech.habit_tracker.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections of read-only transactions to the replica and everything else
+ * (writes, work outside transactions, migrations) to the primary.
+ * <p>
+ * The read-only flag is only known once the transaction has started, so this data source
+ * must be wrapped in a LazyConnectionDataSourceProxy (see {@link ReadReplicaConfig}).
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    /**
+     * Send read-only transactions of the current thread to the primary as well, e.g. right
+     * after the client's own write when the replica may still lag behind
+     */
+    public static void setPrimaryRequired(boolean required) {
+        if (required) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    /**
+     * Where a connection of the current thread would be routed to, if replica routing is active
+     */
+    public static Route currentRoute() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPrimaryRequired()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,87 @@
+package htw.webtech.habit_tracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes for replica routing: a modifying API request marks its client with a
+ * cookie, and the client's reads go to the primary until the cookie expires, so it
+ * never sees its own change disappear because the replica lags behind.
+ * <p>
+ * The cookie holds the expiry time, so this works across instances without shared state.
+ */
+@Component
+@ConditionalOnProperty(name = "habit-tracker.datasource.replica.url")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "primary-until";
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(@Value("${habit-tracker.datasource.read-your-writes-ms:5000}") long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean modifying = isModifying(request.getMethod());
+        if (modifying) {
+            // Set before the chain runs, the response may be committed afterwards
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE_NAME, Long.toString(now + windowMillis))
+                    .path("/api")
+                    .maxAge(Math.max(1, windowMillis / 1000))
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+        }
+
+        ReadWriteRoutingDataSource.setPrimaryRequired(modifying || primaryUntil(request) > now);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.setPrimaryRequired(false);
+        }
+    }
+
+    private static boolean isModifying(String method) {
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)
+                && !HttpMethod.OPTIONS.matches(method);
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,68 @@
+package htw.webtech.habit_tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import htw.webtech.habit_tracker.service.OwnerContext;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Routes connections to the shard of the current owner ({@link OwnerContext}), as placed
+ * by the {@link ConsistentHashRing}. Maintenance jobs that work on all owners pick a shard
+ * explicitly with {@link #runOnShard}.
+ * <p>
+ * The shard is chosen when a connection is acquired, i.e. when a transaction starts, so the
+ * owner must be set before; a transaction never spans shards.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<String> SHARD_OVERRIDE = new ThreadLocal<>();
+
+    private final ConsistentHashRing ring;
+
+    public ShardRoutingDataSource(ConsistentHashRing ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * Run a task with all connections of the current thread going to the given shard
+     */
+    public static void runOnShard(String shard, Runnable task) {
+        String previous = SHARD_OVERRIDE.get();
+        SHARD_OVERRIDE.set(shard);
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                SHARD_OVERRIDE.set(previous);
+            } else {
+                SHARD_OVERRIDE.remove();
+            }
+        }
+    }
+
+    public List<String> shardNames() {
+        return ring.shards();
+    }
+
+    public String shardFor(long ownerId) {
+        return ring.shardFor(ownerId);
+    }
+
+    // Closes the shard pools with the application context
+    @Override
+    public void close() {
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = SHARD_OVERRIDE.get();
+        return shard != null ? shard : ring.shardFor(OwnerContext.current());
+    }
+}
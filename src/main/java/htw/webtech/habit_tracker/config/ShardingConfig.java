@@ -0,0 +1,99 @@
+package htw.webtech.habit_tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One connection pool per shard behind a {@link ShardRoutingDataSource}; every owner's
+ * habits and entries live on the shard the {@link ConsistentHashRing} assigns it.
+ * Only active with habit-tracker.sharding.enabled=true; otherwise Spring Boot's single
+ * data source is used unchanged. Cannot be combined with the read replica
+ * ({@link ReadReplicaConfig}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "habit-tracker.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingConfig.ShardingProperties.class)
+public class ShardingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfig.class);
+
+    /**
+     * @param shards       shard name to connection; the names place the shards on the ring,
+     *                     renaming one moves its owners
+     * @param virtualNodes ring points per shard, more spread the owners more evenly
+     */
+    @ConfigurationProperties("habit-tracker.sharding")
+    public record ShardingProperties(Map<String, Shard> shards, @DefaultValue("128") int virtualNodes) {
+    }
+
+    // Credentials default to spring.datasource.*
+    public record Shard(String url, String username, String password) {
+    }
+
+    public ShardingConfig(Environment environment) {
+        if (environment.containsProperty("habit-tracker.datasource.replica.url")) {
+            throw new IllegalStateException(
+                    "habit-tracker.sharding and habit-tracker.datasource.replica cannot be combined");
+        }
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(ShardingProperties properties, DataSourceProperties defaults,
+            Environment environment) {
+        if (properties.shards() == null || properties.shards().isEmpty()) {
+            throw new IllegalStateException("habit-tracker.sharding.shards must name at least one shard");
+        }
+        Map<Object, Object> pools = new LinkedHashMap<>();
+        properties.shards().forEach((name, shard) -> {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.url())
+                    .username(shard.username() != null ? shard.username() : defaults.determineUsername())
+                    .password(shard.password() != null ? shard.password() : defaults.determinePassword())
+                    .build();
+            // spring.datasource.hikari.* applies to every shard pool
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName("shard-" + name);
+            pools.put(name, pool);
+        });
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(
+                new ConsistentHashRing(properties.shards().keySet(), properties.virtualNodes()));
+        routing.setTargetDataSources(pools);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    /**
+     * Migrate every shard with the configuration Spring Boot built for the routing data source
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource dataSource) {
+        return flyway -> dataSource.getResolvedDataSources().forEach((shard, shardDataSource) -> {
+            log.info("Migrating shard {}", shard);
+            Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(shardDataSource)
+                    .load()
+                    .migrate();
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package htw.webtech.habit_tracker.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lets only a fraction of the slow query log through, so a slow database does not
+ * flood the log. Configured in logback-spring.xml.
+ */
+public class SlowQuerySampler extends TurboFilter {
+
+    private String loggerName = "org.hibernate.SQL_SLOW";
+    private double sampleRate = 1.0;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        // format is null for isXxxEnabled() checks; only the actual log call is sampled
+        if (!isStarted() || format == null || sampleRate >= 1.0 || !loggerName.equals(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < sampleRate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,78 @@
+package htw.webtech.habit_tracker.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDate;
+
+/**
+ * A habit entry older than the archive horizon, moved out of habit_entry by the
+ * EntryArchivalJob. Keeps the id and change sequence of the original entry; archived
+ * entries are read-only.
+ */
+@Entity
+@Table(name = "habit_entry_archive",
+        indexes = {
+                @Index(name = "idx_habit_entry_archive_owner_habit_date", columnList = "owner_id, habit_id, date"),
+                @Index(name = "idx_habit_entry_archive_owner_date", columnList = "owner_id, date, habit_id")
+        })
+public class ArchivedHabitEntry {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", nullable = false)
+    private Habit habit;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @TenantId
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    protected ArchivedHabitEntry() {
+    }
+
+    /**
+     * Unmanaged copy as a regular entry, for responses that mix hot and archived entries
+     */
+    public HabitEntry toEntry() {
+        HabitEntry entry = new HabitEntry(habit, date, completed);
+        entry.setId(id);
+        entry.setChangeSeq(changeSeq);
+        entry.setOwnerId(ownerId);
+        return entry;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Habit getHabit() {
+        return habit;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+}
@@ -1,11 +1,22 @@
 package htw.webtech.habit_tracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.TenantId;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDate;
 
 @Entity
+// Deleted habits stay invisible while HabitPurgeJob removes their entries
+@SQLRestriction("deleted = false")
+@Table(indexes = {
+        @Index(name = "idx_habit_owner_id", columnList = "owner_id, id"),
+        @Index(name = "idx_habit_owner_change_seq", columnList = "owner_id, change_seq")
+})
 public class Habit {
 
     public enum HabitType {
@@ -30,7 +41,9 @@ public class Habit {
 
     private String icon;
 
+    // Plain VARCHAR on every database, matching the Flyway schema
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     @Column(name = "type", nullable = false, columnDefinition = "VARCHAR(20) DEFAULT 'DAILY'")
     private HabitType type = HabitType.DAILY;
 
@@ -39,6 +52,21 @@ public class Habit {
 
     private LocalDate createdAt;
 
+    // Bumped on every create/update, see ChangeSequence
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    // Owner (user id): filled on insert and added to every query by Hibernate, see OwnerContext
+    @TenantId
+    @JsonIgnore
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    // Set instead of deleting right away when the habit has too many entries, see HabitService.deleteHabit
+    @JsonIgnore
+    @Column(nullable = false)
+    private boolean deleted;
+
     public Habit() {
     }
 
@@ -117,4 +145,33 @@ public class Habit {
     public void setCreatedAt(LocalDate createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    // Unmanaged copy with the same state, see HabitService's caches
+    public Habit copy() {
+        Habit copy = new Habit(id, name, description, color, icon, type, targetPerWeek, createdAt);
+        copy.changeSeq = changeSeq;
+        copy.ownerId = ownerId;
+        copy.deleted = deleted;
+        return copy;
+    }
 }
@@ -1,14 +1,25 @@
 package htw.webtech.habit_tracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
 import java.time.LocalDate;
 
 @Entity
-@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"habit_id", "date"}))
+// The schema is owned by the Flyway migrations in db/migration; the indexes are listed for reference
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_habit_entry_habit_date", columnNames = {"habit_id", "date"}),
+        indexes = {
+                @Index(name = "idx_habit_entry_owner_change_seq", columnList = "owner_id, change_seq"),
+                @Index(name = "idx_habit_entry_owner_date", columnList = "owner_id, date, habit_id"),
+                @Index(name = "idx_habit_entry_date", columnList = "date")
+        })
 public class HabitEntry {
 
+    // Sequence-backed ids so Hibernate can batch inserts (IDENTITY disables JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "habit_entry_seq")
+    @SequenceGenerator(name = "habit_entry_seq", sequenceName = "habit_entry_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -21,6 +32,16 @@ public class HabitEntry {
     @Column(nullable = false)
     private boolean completed;
 
+    // Bumped on every create/update, see ChangeSequence
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    // Owner (user id): filled on insert and added to every query by Hibernate, see OwnerContext
+    @TenantId
+    @JsonIgnore
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
     public HabitEntry() {
     }
 
@@ -61,5 +82,20 @@ public class HabitEntry {
     public void setCompleted(boolean completed) {
         this.completed = completed;
     }
-}
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+}
@@ -0,0 +1,106 @@
+package htw.webtech.habit_tracker.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Completed days of one habit in one month as a bit mask (bit d - 1 = day d), maintained
+ * together with the entries. Long-range reads load one row per month instead of one per day.
+ */
+@Entity
+@Table(name = "habit_month_summary",
+        indexes = @Index(name = "idx_habit_month_summary_owner_month", columnList = "owner_id, month_start, habit_id"))
+@IdClass(HabitMonthSummary.Key.class)
+public class HabitMonthSummary {
+
+    @Id
+    @Column(name = "habit_id")
+    private Long habitId;
+
+    // First day of the month
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Column(nullable = false)
+    private int mask;
+
+    // Number of set bits, kept so counts need no decoding
+    @Column(nullable = false)
+    private int completedDays;
+
+    @TenantId
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    public HabitMonthSummary() {
+    }
+
+    public HabitMonthSummary(Long habitId, LocalDate monthStart) {
+        this.habitId = habitId;
+        this.monthStart = monthStart;
+    }
+
+    public boolean isCompleted(int dayOfMonth) {
+        return (mask & (1 << (dayOfMonth - 1))) != 0;
+    }
+
+    public void setCompleted(int dayOfMonth, boolean completed) {
+        int bit = 1 << (dayOfMonth - 1);
+        mask = completed ? mask | bit : mask & ~bit;
+        completedDays = Integer.bitCount(mask);
+    }
+
+    public Long getHabitId() {
+        return habitId;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    public int getCompletedDays() {
+        return completedDays;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Long habitId;
+        private LocalDate monthStart;
+
+        public Key() {
+        }
+
+        public Key(Long habitId, LocalDate monthStart) {
+            this.habitId = habitId;
+            this.monthStart = monthStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Objects.equals(habitId, other.habitId)
+                    && Objects.equals(monthStart, other.monthStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(habitId, monthStart);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package htw.webtech.habit_tracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Incrementally maintained streak and completion counters for one habit.
+ * A "period" is a day for DAILY habits and an ISO week (starting Monday) for WEEKLY habits.
+ */
+@Entity
+public class HabitStats {
+
+    @Id
+    private Long habitId;
+
+    // Length of the latest run of met periods (ending at streakEnd)
+    @Column(nullable = false)
+    private int currentStreak;
+
+    @Column(nullable = false)
+    private int longestStreak;
+
+    @Column(nullable = false)
+    private int totalCompletions;
+
+    // First day of the latest met period, null if no period was ever met
+    private LocalDate streakEnd;
+
+    public HabitStats() {
+    }
+
+    public HabitStats(Long habitId) {
+        this.habitId = habitId;
+    }
+
+    public Long getHabitId() {
+        return habitId;
+    }
+
+    public void setHabitId(Long habitId) {
+        this.habitId = habitId;
+    }
+
+    public int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public void setCurrentStreak(int currentStreak) {
+        this.currentStreak = currentStreak;
+    }
+
+    public int getLongestStreak() {
+        return longestStreak;
+    }
+
+    public void setLongestStreak(int longestStreak) {
+        this.longestStreak = longestStreak;
+    }
+
+    public int getTotalCompletions() {
+        return totalCompletions;
+    }
+
+    public void setTotalCompletions(int totalCompletions) {
+        this.totalCompletions = totalCompletions;
+    }
+
+    public LocalDate getStreakEnd() {
+        return streakEnd;
+    }
+
+    public void setStreakEnd(LocalDate streakEnd) {
+        this.streakEnd = streakEnd;
+    }
+}
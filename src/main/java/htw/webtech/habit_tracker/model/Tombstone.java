@@ -0,0 +1,77 @@
+package htw.webtech.habit_tracker.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Records a deleted habit or entry so delta sync clients can drop it.
+ * The id is drawn from the same change sequence as Habit.changeSeq and HabitEntry.changeSeq.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_tombstone_owner_seq", columnList = "owner_id, seq"))
+public class Tombstone {
+
+    public enum EntityType {
+        HABIT,
+        ENTRY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_seq")
+    @SequenceGenerator(name = "change_seq", sequenceName = "change_seq", allocationSize = 1)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    // Set explicitly instead of @TenantId, compaction writes tombstones for many owners at once
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    public Tombstone() {
+    }
+
+    public Tombstone(EntityType entityType, Long entityId, Long ownerId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.ownerId = ownerId;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+}
@@ -0,0 +1,23 @@
+package htw.webtech.habit_tracker.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Aggregates computed by the database, so only one row per group is transferred.
+ * Implemented with native SQL for Postgres and H2, which differ in their date functions.
+ */
+public interface HabitEntryAggregateRepository {
+
+    /**
+     * Count completed entries, hot and archived, per habit and ISO week (starting Monday)
+     *
+     * @param ownerId owner of the entries (native SQL is not scoped by Hibernate)
+     * @param habitId a single habit, or null for all habits of the owner
+     * @return one row per habit and week with at least one completion, ordered by habit and week
+     */
+    List<WeekCount> countCompletedByWeek(Long ownerId, Long habitId, LocalDate startDate, LocalDate endDate);
+
+    record WeekCount(long habitId, LocalDate weekStart, int completed) {
+    }
+}
@@ -0,0 +1,76 @@
+package htw.webtech.habit_tracker.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Native aggregate queries for {@link HabitEntryAggregateRepository}
+ */
+public class HabitEntryAggregateRepositoryImpl implements HabitEntryAggregateRepository {
+
+    // %1$s = Monday of the entry's ISO week, %2$s = optional habit filter. Archived days are
+    // never in the hot table as well, so the union needs no deduplication; habits marked
+    // deleted are skipped
+    private static final String WEEKLY_COUNTS = """
+            SELECT habit_id, %1$s AS week_start, COUNT(*) AS completed
+            FROM (
+                SELECT habit_id, date FROM habit_entry
+                WHERE owner_id = :ownerId AND completed = TRUE AND date BETWEEN :startDate AND :endDate%2$s
+                UNION ALL
+                SELECT habit_id, date FROM habit_entry_archive
+                WHERE owner_id = :ownerId AND completed = TRUE AND date BETWEEN :startDate AND :endDate%2$s
+            ) completed_day
+            WHERE habit_id IN (SELECT id FROM habit WHERE owner_id = :ownerId AND deleted = FALSE)
+            GROUP BY habit_id, %1$s
+            ORDER BY habit_id, week_start""";
+
+    private static final String POSTGRES_WEEK_START = "CAST(date_trunc('week', date) AS DATE)";
+    private static final String H2_WEEK_START = "DATEADD('DAY', 1 - ISO_DAY_OF_WEEK(date), date)";
+    private static final String HABIT_FILTER = " AND habit_id = :habitId";
+
+    private static final RowMapper<WeekCount> WEEK_COUNT_MAPPER = (rs, rowNum) -> new WeekCount(
+            rs.getLong("habit_id"),
+            rs.getObject("week_start", LocalDate.class),
+            rs.getInt("completed"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String weekStart;
+
+    public HabitEntryAggregateRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            this.weekStart = POSTGRES_WEEK_START;
+        } else if (dialect instanceof H2Dialect) {
+            this.weekStart = H2_WEEK_START;
+        } else {
+            this.weekStart = null;
+        }
+    }
+
+    @Override
+    public List<WeekCount> countCompletedByWeek(Long ownerId, Long habitId, LocalDate startDate, LocalDate endDate) {
+        if (weekStart == null) {
+            throw new UnsupportedOperationException("Weekly aggregation is not supported for this database");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ownerId", ownerId)
+                .addValue("startDate", startDate)
+                .addValue("endDate", endDate)
+                .addValue("habitId", habitId);
+        String sql = WEEKLY_COUNTS.formatted(weekStart, habitId != null ? HABIT_FILTER : "");
+        return jdbcTemplate.query(sql, params, WEEK_COUNT_MAPPER);
+    }
+}
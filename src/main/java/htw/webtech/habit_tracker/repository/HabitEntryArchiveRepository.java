@@ -0,0 +1,74 @@
+package htw.webtech.habit_tracker.repository;
+
+import htw.webtech.habit_tracker.model.ArchivedHabitEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// JPA queries are scoped to the current owner like HabitEntryRepository; reads mirror its
+// queries, including hiding entries of habits marked deleted, so every history read can union
+// both tables
+public interface HabitEntryArchiveRepository extends JpaRepository<ArchivedHabitEntry, Long> {
+
+    List<ArchivedHabitEntry> findByHabitId(Long habitId);
+
+    List<ArchivedHabitEntry> findByHabitIdAndDateBetween(Long habitId, LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT a FROM ArchivedHabitEntry a WHERE a.date BETWEEN :startDate AND :endDate AND a.habit.deleted = false")
+    List<ArchivedHabitEntry> findByDateBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT a FROM ArchivedHabitEntry a WHERE a.habit.deleted = false")
+    List<ArchivedHabitEntry> findAllOfVisibleHabits();
+
+    @Query("SELECT a FROM ArchivedHabitEntry a WHERE a.changeSeq > :changeSeq AND a.habit.deleted = false "
+            + "ORDER BY a.changeSeq")
+    List<ArchivedHabitEntry> findByChangeSeqGreaterThanOrderByChangeSeq(@Param("changeSeq") Long changeSeq);
+
+    Slice<ArchivedHabitEntry> findByHabitIdOrderByDateAscIdAsc(Long habitId, Pageable pageable);
+
+    @Query("SELECT a FROM ArchivedHabitEntry a WHERE a.habit.id = :habitId AND a.habit.deleted = false "
+            + "AND (a.date, a.id) > (:date, :id) ORDER BY a.date, a.id")
+    Slice<ArchivedHabitEntry> findByHabitIdAfter(@Param("habitId") Long habitId, @Param("date") LocalDate date,
+            @Param("id") Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = HabitEntryRepository.EXPORT_FETCH_SIZE))
+    @Query("SELECT a.id AS id, a.habit.id AS habitId, a.date AS date, a.completed AS completed "
+            + "FROM ArchivedHabitEntry a WHERE a.date BETWEEN :startDate AND :endDate AND a.habit.deleted = false "
+            + "ORDER BY a.date, a.id")
+    Stream<HabitEntryRepository.EntryRow> streamByDateBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT a.date FROM ArchivedHabitEntry a WHERE a.habit.id = :habitId AND a.completed = true ORDER BY a.date")
+    List<LocalDate> findCompletedDates(@Param("habitId") Long habitId);
+
+    @Query("SELECT a.date FROM ArchivedHabitEntry a WHERE a.habit.id = :habitId AND a.completed = true "
+            + "AND a.date BETWEEN :startDate AND :endDate ORDER BY a.date")
+    List<LocalDate> findCompletedDatesBetween(@Param("habitId") Long habitId,
+            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Copies rows of any owner, the archival job deletes them from habit_entry in the same transaction
+    @Modifying
+    @Query(value = "INSERT INTO habit_entry_archive (id, habit_id, date, completed, change_seq, owner_id) "
+            + "SELECT id, habit_id, date, completed, change_seq, owner_id FROM habit_entry WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copyFromEntries(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id FROM ArchivedHabitEntry a WHERE a.habit.id = :habitId")
+    List<Long> findIdsByHabitId(@Param("habitId") Long habitId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedHabitEntry a WHERE a.habit.id = :habitId")
+    int deleteByHabitId(@Param("habitId") Long habitId);
+}
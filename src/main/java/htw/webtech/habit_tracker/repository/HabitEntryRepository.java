@@ -1,13 +1,38 @@
 package htw.webtech.habit_tracker.repository;
 
 import htw.webtech.habit_tracker.model.HabitEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface HabitEntryRepository extends JpaRepository<HabitEntry, Long> {
+// JPA queries are scoped to the current owner by Hibernate (@TenantId on HabitEntry); the
+// native fragments take the owner as parameter. Entries of a habit marked deleted (and not yet
+// purged) are hidden like the habit: derived queries on habit.id join the habit and so apply
+// its restriction, the other reads check e.habit.deleted explicitly
+public interface HabitEntryRepository extends JpaRepository<HabitEntry, Long>, HabitEntryUpsertRepository,
+        HabitEntryAggregateRepository {
+    
+    // Rows fetched per round trip when streaming exports (needs an open transaction on Postgres)
+    String EXPORT_FETCH_SIZE = "1000";
+    
+    // Loading by id bypasses the owner filter, so the id lookup runs as a query
+    @Override
+    @Query("SELECT e FROM HabitEntry e WHERE e.id = :id AND e.habit.deleted = false")
+    Optional<HabitEntry> findById(@Param("id") Long id);
     
     List<HabitEntry> findByHabitId(Long habitId);
     
@@ -15,10 +40,111 @@ public interface HabitEntryRepository extends JpaRepository<HabitEntry, Long> {
     
     Optional<HabitEntry> findByHabitIdAndDate(Long habitId, LocalDate date);
     
-    List<HabitEntry> findByDateBetween(LocalDate startDate, LocalDate endDate);
+    // Keyset pages on (date, id), seeking the (habit_id, date) index instead of using OFFSET
+    Slice<HabitEntry> findByHabitIdOrderByDateAscIdAsc(Long habitId, Pageable pageable);
+    
+    // Row-value comparison, so the seek is a single index range; Hibernate expands it to
+    // date > ? OR (date = ? AND id > ?) for dialects without row values
+    @Query("SELECT e FROM HabitEntry e WHERE e.habit.id = :habitId AND e.habit.deleted = false "
+            + "AND (e.date, e.id) > (:date, :id) ORDER BY e.date, e.id")
+    Slice<HabitEntry> findByHabitIdAfter(@Param("habitId") Long habitId, @Param("date") LocalDate date,
+            @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT e FROM HabitEntry e WHERE e.date BETWEEN :startDate AND :endDate AND e.habit.deleted = false")
+    List<HabitEntry> findByDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT e FROM HabitEntry e WHERE e.date = :date AND e.habit.deleted = false")
+    List<HabitEntry> findByDate(@Param("date") LocalDate date);
+    
+    // Full sync snapshot
+    @Query("SELECT e FROM HabitEntry e WHERE e.habit.deleted = false")
+    List<HabitEntry> findAllOfVisibleHabits();
+    
+    // Set-based lookup for batch writes; may return extra (habit, date) combinations
+    List<HabitEntry> findByHabitIdInAndDateIn(Collection<Long> habitIds, Collection<LocalDate> dates);
+    
+    @Query("SELECT e FROM HabitEntry e WHERE e.changeSeq > :changeSeq AND e.habit.deleted = false ORDER BY e.changeSeq")
+    List<HabitEntry> findByChangeSeqGreaterThanOrderByChangeSeq(@Param("changeSeq") Long changeSeq);
+    
+    @Query("SELECT e.date FROM HabitEntry e WHERE e.habit.id = :habitId AND e.completed = true ORDER BY e.date")
+    List<LocalDate> findCompletedDates(@Param("habitId") Long habitId);
+    
+    @Query("SELECT e.date FROM HabitEntry e WHERE e.habit.id = :habitId AND e.completed = true "
+            + "AND e.date BETWEEN :startDate AND :endDate ORDER BY e.date")
+    List<LocalDate> findCompletedDatesBetween(@Param("habitId") Long habitId,
+            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Projection of completed days, read as tuples instead of managed entities
+    @Query("SELECT e.habit.id AS habitId, e.date AS date FROM HabitEntry e "
+            + "WHERE e.completed = true AND e.date BETWEEN :startDate AND :endDate")
+    List<CompletedDay> findCompletedDaysBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+    
+    // Same projection as a cursor-backed stream, for a single pass without materializing a list
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT e.habit.id AS habitId, e.date AS date FROM HabitEntry e "
+            + "WHERE e.completed = true AND e.date BETWEEN :startDate AND :endDate")
+    Stream<CompletedDay> streamCompletedDaysBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+    
+    // Completed days of the hot table and the archive in one statement; an entry lives in
+    // exactly one of the two tables, so UNION ALL never counts a day twice
+    @Query("SELECT e.habit.id AS habitId, e.date AS date FROM HabitEntry e "
+            + "WHERE e.completed = true AND e.date BETWEEN :startDate AND :endDate "
+            + "UNION ALL SELECT a.habit.id AS habitId, a.date AS date FROM ArchivedHabitEntry a "
+            + "WHERE a.completed = true AND a.date BETWEEN :startDate AND :endDate")
+    List<CompletedDay> findCompletedDaysWithArchiveBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT e.habit.id AS habitId, e.date AS date FROM HabitEntry e "
+            + "WHERE e.completed = true AND e.date BETWEEN :startDate AND :endDate "
+            + "UNION ALL SELECT a.habit.id AS habitId, a.date AS date FROM ArchivedHabitEntry a "
+            + "WHERE a.completed = true AND a.date BETWEEN :startDate AND :endDate")
+    Stream<CompletedDay> streamCompletedDaysWithArchiveBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+    
+    // Cursor-backed stream for exports; projections keep the persistence context empty
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT e.id AS id, e.habit.id AS habitId, e.date AS date, e.completed AS completed "
+            + "FROM HabitEntry e WHERE e.date BETWEEN :startDate AND :endDate AND e.habit.deleted = false "
+            + "ORDER BY e.date, e.id")
+    Stream<EntryRow> streamByDateBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+    
+    // One statement; the derived delete would load and remove every entry one by one
+    @Modifying
+    @Query("DELETE FROM HabitEntry e WHERE e.habit.id = :habitId")
+    int deleteByHabitId(@Param("habitId") Long habitId);
+    
+    // Purge chunk of a deleted habit (see HabitPurgeJob)
+    @Query("SELECT e.id FROM HabitEntry e WHERE e.habit.id = :habitId")
+    List<Long> findIdsByHabitId(@Param("habitId") Long habitId, Pageable pageable);
+    
+    // Compaction batch of unchecked rows; locked so a concurrent check is not purged, rows
+    // locked by users are skipped (-2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<HabitEntry> findByCompletedFalseOrderById(Pageable pageable);
+    
+    // Archival batch: oldest entries before the horizon, of all owners when run without owner
+    @Query("SELECT e.id FROM HabitEntry e WHERE e.date < :horizon ORDER BY e.date, e.id")
+    List<Long> findIdsBefore(@Param("horizon") LocalDate horizon, Pageable pageable);
     
-    List<HabitEntry> findByDate(LocalDate date);
+    interface CompletedDay {
+        Long getHabitId();
+        
+        LocalDate getDate();
+    }
     
-    void deleteByHabitId(Long habitId);
+    interface EntryRow {
+        Long getId();
+        
+        Long getHabitId();
+        
+        LocalDate getDate();
+        
+        boolean isCompleted();
+    }
 }
 
@@ -0,0 +1,46 @@
+package htw.webtech.habit_tracker.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes relying on the (habit_id, date) unique constraint.
+ * Implemented with native SQL for Postgres (INSERT ... ON CONFLICT) and H2 (MERGE); the owner is
+ * written explicitly because native SQL bypasses Hibernate's owner handling.
+ */
+public interface HabitEntryUpsertRepository {
+
+    /**
+     * Whether the current database supports the native upsert statements
+     */
+    boolean supportsUpsert();
+
+    /**
+     * Insert a completed entry or flip an existing one
+     *
+     * @return the resulting row, or empty if the habit does not exist
+     */
+    Optional<UpsertResult> upsertToggle(Long ownerId, Long habitId, LocalDate date);
+
+    /**
+     * Insert or overwrite the completion status of an entry. The previous status is read under
+     * the row lock, so concurrent sets each see the value they replaced.
+     *
+     * @return the resulting row, or empty if the habit does not exist
+     */
+    Optional<UpsertResult> upsertSet(Long ownerId, Long habitId, LocalDate date, boolean completed);
+
+    /**
+     * Insert or overwrite many entries as one JDBC batch, all with the given change sequence
+     * number (bulk import). Each (habit, date) may appear only once. A concurrent insert of a
+     * key is overwritten on Postgres; on H2 the batch fails with a DuplicateKeyException.
+     */
+    void upsertAll(Long ownerId, List<UpsertRow> rows, long changeSeq);
+
+    record UpsertResult(long id, boolean completed, boolean previouslyCompleted, long changeSeq) {
+    }
+
+    record UpsertRow(Long habitId, LocalDate date, boolean completed) {
+    }
+}
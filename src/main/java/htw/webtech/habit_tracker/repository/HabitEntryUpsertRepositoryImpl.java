@@ -0,0 +1,225 @@
+package htw.webtech.habit_tracker.repository;
+
+import htw.webtech.habit_tracker.model.HabitEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Native upserts for {@link HabitEntryUpsertRepository}.
+ * Ids come from Hibernate's generator for HabitEntry, so native and JPA inserts share its pooled
+ * blocks of habit_entry_seq; change sequence numbers are drawn inside the statement. A foreign key
+ * violation on habit_id means the habit does not exist.
+ */
+public class HabitEntryUpsertRepositoryImpl implements HabitEntryUpsertRepository {
+
+    // A flip of the locked row, so NOT completed is the previous value
+    private static final String POSTGRES_TOGGLE = """
+            INSERT INTO habit_entry (id, habit_id, date, completed, change_seq, owner_id)
+            VALUES (:id, :habitId, :date, TRUE, nextval('change_seq'), :ownerId)
+            ON CONFLICT (habit_id, date) DO UPDATE
+            SET completed = NOT habit_entry.completed, change_seq = EXCLUDED.change_seq
+            RETURNING id, completed, NOT completed AS previous, change_seq""";
+
+    private static final String POSTGRES_UPDATE = """
+            UPDATE habit_entry SET completed = :completed, change_seq = nextval('change_seq')
+            WHERE habit_id = :habitId AND date = :date
+            RETURNING id, completed, CAST(:previous AS BOOLEAN) AS previous, change_seq""";
+
+    // Empty on a concurrent insert of the key, after waiting for it to commit
+    private static final String POSTGRES_INSERT = """
+            INSERT INTO habit_entry (id, habit_id, date, completed, change_seq, owner_id)
+            VALUES (:id, :habitId, :date, :completed, nextval('change_seq'), :ownerId)
+            ON CONFLICT (habit_id, date) DO NOTHING
+            RETURNING id, completed, FALSE AS previous, change_seq""";
+
+    private static final String H2_TOGGLE = """
+            SELECT id, completed, NOT completed AS previous, change_seq FROM FINAL TABLE (
+                MERGE INTO habit_entry t
+                USING (VALUES (CAST(:habitId AS BIGINT), CAST(:date AS DATE))) AS s(habit_id, entry_date)
+                ON t.habit_id = s.habit_id AND t.date = s.entry_date
+                WHEN MATCHED THEN UPDATE SET completed = NOT t.completed, change_seq = NEXT VALUE FOR change_seq
+                WHEN NOT MATCHED THEN INSERT (id, habit_id, date, completed, change_seq, owner_id)
+                    VALUES (CAST(:id AS BIGINT), s.habit_id, s.entry_date, TRUE, NEXT VALUE FOR change_seq,
+                        CAST(:ownerId AS BIGINT)))""";
+
+    private static final String H2_UPDATE = """
+            SELECT id, completed, CAST(:previous AS BOOLEAN) AS previous, change_seq FROM FINAL TABLE (
+                UPDATE habit_entry SET completed = :completed, change_seq = NEXT VALUE FOR change_seq
+                WHERE habit_id = :habitId AND date = :date)""";
+
+    private static final String H2_INSERT = """
+            SELECT id, completed, FALSE AS previous, change_seq FROM FINAL TABLE (
+                INSERT INTO habit_entry (id, habit_id, date, completed, change_seq, owner_id)
+                VALUES (:id, :habitId, :date, :completed, NEXT VALUE FOR change_seq, :ownerId))""";
+
+    // Bulk import: the caller draws the change sequence number once per batch
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO habit_entry (id, habit_id, date, completed, change_seq, owner_id)
+            VALUES (:id, :habitId, :date, :completed, :changeSeq, :ownerId)
+            ON CONFLICT (habit_id, date) DO UPDATE
+            SET completed = EXCLUDED.completed, change_seq = EXCLUDED.change_seq""";
+
+    private static final String H2_UPSERT = """
+            MERGE INTO habit_entry t
+            USING (VALUES (CAST(:habitId AS BIGINT), CAST(:date AS DATE))) AS s(habit_id, entry_date)
+            ON t.habit_id = s.habit_id AND t.date = s.entry_date
+            WHEN MATCHED THEN UPDATE SET completed = CAST(:completed AS BOOLEAN),
+                change_seq = CAST(:changeSeq AS BIGINT)
+            WHEN NOT MATCHED THEN INSERT (id, habit_id, date, completed, change_seq, owner_id)
+                VALUES (CAST(:id AS BIGINT), s.habit_id, s.entry_date, CAST(:completed AS BOOLEAN),
+                    CAST(:changeSeq AS BIGINT), CAST(:ownerId AS BIGINT))""";
+
+    // Previous value of a set, read under the row lock the following update relies on
+    private static final String LOCK_PREVIOUS = """
+            SELECT completed FROM habit_entry WHERE habit_id = :habitId AND date = :date FOR UPDATE""";
+
+    // Lock, then update or insert: repeated when the row appears or disappears in between
+    private static final int SET_ATTEMPTS = 3;
+
+    private static final RowMapper<UpsertResult> ROW_MAPPER = (rs, rowNum) -> new UpsertResult(
+            rs.getLong("id"),
+            rs.getBoolean("completed"),
+            rs.getBoolean("previous"),
+            rs.getLong("change_seq"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final BeforeExecutionGenerator idGenerator;
+    private final String toggleSql;
+    private final String updateSql;
+    private final String insertSql;
+    private final String upsertSql;
+    private final boolean duplicateMeansRetry;
+
+    public HabitEntryUpsertRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate,
+            EntityManagerFactory entityManagerFactory, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.idGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(HabitEntry.class)
+                .getGenerator();
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            this.toggleSql = POSTGRES_TOGGLE;
+            this.updateSql = POSTGRES_UPDATE;
+            this.insertSql = POSTGRES_INSERT;
+            this.upsertSql = POSTGRES_UPSERT;
+            this.duplicateMeansRetry = false;
+        } else if (dialect instanceof H2Dialect) {
+            this.toggleSql = H2_TOGGLE;
+            this.updateSql = H2_UPDATE;
+            this.insertSql = H2_INSERT;
+            this.upsertSql = H2_UPSERT;
+            this.duplicateMeansRetry = true;
+        } else {
+            this.toggleSql = null;
+            this.updateSql = null;
+            this.insertSql = null;
+            this.upsertSql = null;
+            this.duplicateMeansRetry = false;
+        }
+    }
+
+    @Override
+    public boolean supportsUpsert() {
+        return toggleSql != null;
+    }
+
+    @Override
+    public Optional<UpsertResult> upsertToggle(Long ownerId, Long habitId, LocalDate date) {
+        return execute(toggleSql, new MapSqlParameterSource()
+                .addValue("id", nextId())
+                .addValue("ownerId", ownerId)
+                .addValue("habitId", habitId)
+                .addValue("date", date));
+    }
+
+    @Override
+    public Optional<UpsertResult> upsertSet(Long ownerId, Long habitId, LocalDate date, boolean completed) {
+        if (updateSql == null) {
+            throw new UnsupportedOperationException("Native upsert is not supported for this database");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ownerId", ownerId)
+                .addValue("habitId", habitId)
+                .addValue("date", date)
+                .addValue("completed", completed);
+        for (int attempt = 1; ; attempt++) {
+            List<Boolean> previous = jdbcTemplate.queryForList(LOCK_PREVIOUS, params, Boolean.class);
+            Optional<UpsertResult> result;
+            try {
+                result = previous.isEmpty()
+                        ? query(insertSql, params.addValue("id", nextId()))
+                        : query(updateSql, params.addValue("previous", previous.get(0)));
+            } catch (DuplicateKeyException e) {
+                // H2 fails the insert once a concurrent insert of the key commits; unlike
+                // Postgres, a failed statement leaves the H2 transaction usable
+                if (!duplicateMeansRetry || attempt == SET_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            } catch (DataIntegrityViolationException e) {
+                return Optional.empty();
+            }
+            if (result.isPresent() || attempt == SET_ATTEMPTS) {
+                return result;
+            }
+        }
+    }
+
+    @Override
+    public void upsertAll(Long ownerId, List<UpsertRow> rows, long changeSeq) {
+        if (upsertSql == null) {
+            throw new UnsupportedOperationException("Native upsert is not supported for this database");
+        }
+        // Ids are drawn for every row, rows that update an existing entry leave a gap
+        SqlParameterSource[] batch = rows.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("id", nextId())
+                        .addValue("ownerId", ownerId)
+                        .addValue("habitId", row.habitId())
+                        .addValue("date", row.date())
+                        .addValue("completed", row.completed())
+                        .addValue("changeSeq", changeSeq))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(upsertSql, batch);
+    }
+
+    private Optional<UpsertResult> execute(String sql, MapSqlParameterSource params) {
+        if (sql == null) {
+            throw new UnsupportedOperationException("Native upsert is not supported for this database");
+        }
+        try {
+            return query(sql, params);
+        } catch (DataIntegrityViolationException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<UpsertResult> query(String sql, MapSqlParameterSource params) {
+        return jdbcTemplate.query(sql, params, ROW_MAPPER).stream().findFirst();
+    }
+
+    private Object nextId() {
+        return idGenerator.generate(entityManager.unwrap(SharedSessionContractImplementor.class), null, null,
+                EventType.INSERT);
+    }
+}
@@ -0,0 +1,20 @@
+package htw.webtech.habit_tracker.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Race-free creation of a habit's month mask: concurrent first writers of a month insert it
+ * once instead of failing on the primary key. Implemented with native SQL for Postgres
+ * (INSERT ... ON CONFLICT DO NOTHING) and H2 (MERGE).
+ */
+public interface HabitMonthSummaryInsertRepository {
+
+    /**
+     * Insert an empty mask for a habit and month unless a row exists; waits for a concurrent
+     * insert of the same key to commit
+     *
+     * @param ownerId owner of the habit (native SQL is not scoped by Hibernate)
+     * @return true if this call inserted the row
+     */
+    boolean insertIfAbsent(Long ownerId, Long habitId, LocalDate monthStart);
+}
@@ -0,0 +1,75 @@
+package htw.webtech.habit_tracker.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Native insert-if-absent for {@link HabitMonthSummaryInsertRepository}
+ */
+public class HabitMonthSummaryInsertRepositoryImpl implements HabitMonthSummaryInsertRepository {
+
+    private static final String POSTGRES_INSERT = """
+            INSERT INTO habit_month_summary (habit_id, month_start, mask, completed_days, owner_id)
+            VALUES (:habitId, :monthStart, 0, 0, :ownerId)
+            ON CONFLICT (habit_id, month_start) DO NOTHING""";
+
+    private static final String H2_INSERT = """
+            MERGE INTO habit_month_summary t
+            USING (VALUES (CAST(:habitId AS BIGINT), CAST(:monthStart AS DATE))) AS s(habit_id, month_start)
+            ON t.habit_id = s.habit_id AND t.month_start = s.month_start
+            WHEN NOT MATCHED THEN INSERT (habit_id, month_start, mask, completed_days, owner_id)
+                VALUES (s.habit_id, s.month_start, 0, 0, :ownerId)""";
+
+    // Other databases: still fails on a concurrent first insert, as before
+    private static final String PORTABLE_INSERT = """
+            INSERT INTO habit_month_summary (habit_id, month_start, mask, completed_days, owner_id)
+            SELECT :habitId, :monthStart, 0, 0, :ownerId WHERE NOT EXISTS (
+                SELECT 1 FROM habit_month_summary WHERE habit_id = :habitId AND month_start = :monthStart)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final boolean duplicateMeansPresent;
+
+    public HabitMonthSummaryInsertRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            this.insertSql = POSTGRES_INSERT;
+            this.duplicateMeansPresent = false;
+        } else if (dialect instanceof H2Dialect) {
+            this.insertSql = H2_INSERT;
+            this.duplicateMeansPresent = true;
+        } else {
+            this.insertSql = PORTABLE_INSERT;
+            this.duplicateMeansPresent = false;
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Long ownerId, Long habitId, LocalDate monthStart) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ownerId", ownerId)
+                .addValue("habitId", habitId)
+                .addValue("monthStart", monthStart);
+        try {
+            return jdbcTemplate.update(insertSql, params) > 0;
+        } catch (DuplicateKeyException e) {
+            // As for habit_stats: H2's MERGE fails once a concurrent insert of the key commits
+            if (!duplicateMeansPresent) {
+                throw e;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package htw.webtech.habit_tracker.repository;
+
+import htw.webtech.habit_tracker.model.HabitMonthSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+// Queries are scoped to the current owner by Hibernate (@TenantId on HabitMonthSummary); the
+// native insert takes the owner as parameter
+public interface HabitMonthSummaryRepository extends JpaRepository<HabitMonthSummary, HabitMonthSummary.Key>,
+        HabitMonthSummaryInsertRepository {
+
+    // Serializes concurrent changes to the same month's mask
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM HabitMonthSummary s WHERE s.habitId = :habitId AND s.monthStart = :monthStart")
+    Optional<HabitMonthSummary> findForUpdate(@Param("habitId") Long habitId,
+            @Param("monthStart") LocalDate monthStart);
+
+    @Query("SELECT s FROM HabitMonthSummary s WHERE s.habitId = :habitId ORDER BY s.monthStart")
+    List<HabitMonthSummary> findByHabitId(@Param("habitId") Long habitId);
+
+    @Query("SELECT s FROM HabitMonthSummary s WHERE s.monthStart BETWEEN :startMonth AND :endMonth")
+    List<HabitMonthSummary> findByMonthStartBetween(@Param("startMonth") LocalDate startMonth,
+            @Param("endMonth") LocalDate endMonth);
+
+    @Modifying
+    @Query("DELETE FROM HabitMonthSummary s WHERE s.habitId = :habitId")
+    int deleteByHabitId(@Param("habitId") Long habitId);
+}
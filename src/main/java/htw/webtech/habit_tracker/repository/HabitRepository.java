@@ -1,7 +1,74 @@
 package htw.webtech.habit_tracker.repository;
 
 import htw.webtech.habit_tracker.model.Habit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+import java.util.Optional;
+
+// All queries are scoped to the current owner by Hibernate (@TenantId on Habit) and skip
+// deleted habits (@SQLRestriction); the native queries are neither
 public interface HabitRepository extends JpaRepository<Habit, Long> {
+
+    // Loading by id bypasses the owner filter, so the id lookups run as queries
+    @Override
+    @Query("SELECT h FROM Habit h WHERE h.id = :id")
+    Optional<Habit> findById(@Param("id") Long id);
+
+    @Override
+    @Query("SELECT COUNT(h) > 0 FROM Habit h WHERE h.id = :id")
+    boolean existsById(@Param("id") Long id);
+
+    List<Habit> findByChangeSeqGreaterThanOrderByChangeSeq(Long changeSeq);
+
+    // Keyset page: seeks the primary key instead of skipping rows with OFFSET
+    Slice<Habit> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Projection without description, read as tuples instead of managed entities
+    @Query("SELECT h.id AS id, h.name AS name, h.color AS color, h.icon AS icon, h.type AS type, "
+            + "h.targetPerWeek AS targetPerWeek FROM Habit h ORDER BY h.id")
+    List<HabitSummary> findAllSummaries();
+
+    // Native, so not owner scoped: every owner with habits, for maintenance across owners
+    @Query(value = "SELECT DISTINCT owner_id FROM habit", nativeQuery = true)
+    List<Long> findOwnerIds();
+
+    @Modifying
+    @Query("UPDATE Habit h SET h.deleted = true WHERE h.id = :id")
+    int markDeleted(@Param("id") Long id);
+
+    // Habits waiting for HabitPurgeJob, of all owners
+    @Query(value = "SELECT id AS id, owner_id AS ownerId FROM habit WHERE deleted = TRUE ORDER BY id",
+            nativeQuery = true)
+    List<DeletedHabit> findDeleted();
+
+    // Final step of the purge, once no entries reference the habit anymore
+    @Modifying
+    @Query(value = "DELETE FROM habit WHERE id = :id AND deleted = TRUE", nativeQuery = true)
+    int deleteMarked(@Param("id") Long id);
+
+    interface DeletedHabit {
+        Long getId();
+
+        Long getOwnerId();
+    }
+
+    interface HabitSummary {
+        Long getId();
+
+        String getName();
+
+        String getColor();
+
+        String getIcon();
+
+        Habit.HabitType getType();
+
+        Integer getTargetPerWeek();
+    }
 }
@@ -0,0 +1,17 @@
+package htw.webtech.habit_tracker.repository;
+
+/**
+ * Race-free creation of a habit's stats row: concurrent first writers insert it once instead
+ * of failing on the primary key. Implemented with native SQL for Postgres (INSERT ... ON
+ * CONFLICT DO NOTHING) and H2 (MERGE).
+ */
+public interface HabitStatsInsertRepository {
+
+    /**
+     * Insert empty counters for a habit unless a row exists; waits for a concurrent insert
+     * of the same habit to commit
+     *
+     * @return true if this call inserted the row
+     */
+    boolean insertIfAbsent(Long habitId);
+}
@@ -0,0 +1,69 @@
+package htw.webtech.habit_tracker.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Native insert-if-absent for {@link HabitStatsInsertRepository}
+ */
+public class HabitStatsInsertRepositoryImpl implements HabitStatsInsertRepository {
+
+    private static final String POSTGRES_INSERT = """
+            INSERT INTO habit_stats (habit_id, current_streak, longest_streak, total_completions)
+            VALUES (:habitId, 0, 0, 0)
+            ON CONFLICT (habit_id) DO NOTHING""";
+
+    private static final String H2_INSERT = """
+            MERGE INTO habit_stats t
+            USING (VALUES (CAST(:habitId AS BIGINT))) AS s(habit_id)
+            ON t.habit_id = s.habit_id
+            WHEN NOT MATCHED THEN INSERT (habit_id, current_streak, longest_streak, total_completions)
+                VALUES (s.habit_id, 0, 0, 0)""";
+
+    // Other databases: still fails on a concurrent first insert, as before
+    private static final String PORTABLE_INSERT = """
+            INSERT INTO habit_stats (habit_id, current_streak, longest_streak, total_completions)
+            SELECT :habitId, 0, 0, 0 WHERE NOT EXISTS (SELECT 1 FROM habit_stats WHERE habit_id = :habitId)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final boolean duplicateMeansPresent;
+
+    public HabitStatsInsertRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            this.insertSql = POSTGRES_INSERT;
+            this.duplicateMeansPresent = false;
+        } else if (dialect instanceof H2Dialect) {
+            this.insertSql = H2_INSERT;
+            this.duplicateMeansPresent = true;
+        } else {
+            this.insertSql = PORTABLE_INSERT;
+            this.duplicateMeansPresent = false;
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Long habitId) {
+        try {
+            return jdbcTemplate.update(insertSql, new MapSqlParameterSource("habitId", habitId)) > 0;
+        } catch (DuplicateKeyException e) {
+            // H2's MERGE does not wait for a concurrent insert of the key, it fails once that
+            // commits; unlike Postgres, a failed statement leaves the H2 transaction usable
+            if (!duplicateMeansPresent) {
+                throw e;
+            }
+            return false;
+        }
+    }
+}
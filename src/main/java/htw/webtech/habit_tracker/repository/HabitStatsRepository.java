@@ -0,0 +1,18 @@
+package htw.webtech.habit_tracker.repository;
+
+import htw.webtech.habit_tracker.model.HabitStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface HabitStatsRepository extends JpaRepository<HabitStats, Long>, HabitStatsInsertRepository {
+
+    // Serializes concurrent updates of the same habit's counters
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM HabitStats s WHERE s.habitId = :habitId")
+    Optional<HabitStats> findForUpdate(@Param("habitId") Long habitId);
+}
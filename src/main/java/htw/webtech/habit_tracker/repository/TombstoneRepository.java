@@ -0,0 +1,16 @@
+package htw.webtech.habit_tracker.repository;
+
+import htw.webtech.habit_tracker.model.Tombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    List<Tombstone> findByOwnerIdAndSeqGreaterThanOrderBySeq(Long ownerId, Long seq);
+
+    @Query("SELECT max(t.seq) FROM Tombstone t WHERE t.ownerId = :ownerId")
+    Long findMaxSeq(@Param("ownerId") Long ownerId);
+}
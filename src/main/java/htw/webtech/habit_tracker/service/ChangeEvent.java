@@ -0,0 +1,40 @@
+package htw.webtech.habit_tracker.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+
+import java.time.LocalDate;
+
+/**
+ * Compact change notification pushed to connected clients (see {@link ChangeEventBroadcaster}).
+ * Habit events only carry the id; clients refetch the habit when they need its fields.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeEvent(@JsonIgnore String type, Long id, Long habitId, LocalDate date, Boolean completed) {
+
+    public static final String ENTRY = "entry";
+    public static final String ENTRY_DELETED = "entry-deleted";
+    public static final String HABIT = "habit";
+    public static final String HABIT_DELETED = "habit-deleted";
+
+    /**
+     * Entry created or changed; id is null while the entry is only buffered
+     */
+    public static ChangeEvent entry(HabitEntry entry) {
+        return new ChangeEvent(ENTRY, entry.getId(), entry.getHabit().getId(), entry.getDate(), entry.isCompleted());
+    }
+
+    public static ChangeEvent entryDeleted(HabitEntry entry) {
+        return new ChangeEvent(ENTRY_DELETED, entry.getId(), entry.getHabit().getId(), entry.getDate(), null);
+    }
+
+    public static ChangeEvent habit(Habit habit) {
+        return new ChangeEvent(HABIT, habit.getId(), null, null, null);
+    }
+
+    public static ChangeEvent habitDeleted(Long habitId) {
+        return new ChangeEvent(HABIT_DELETED, habitId, null, null, null);
+    }
+}
@@ -0,0 +1,265 @@
+package htw.webtech.habit_tracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes {@link ChangeEvent}s to Server-Sent Event subscribers.
+ * <p>
+ * Events are queued after the writing transaction commits. A single dispatcher thread
+ * serializes each event once and hands the frame to the bounded buffer of every subscriber
+ * of the same owner. Buffers with pending frames are drained on a virtual thread each, so
+ * idle connections hold no thread and a stalled socket only blocks its own writer.
+ * A subscriber whose buffer overflows or whose send does not finish within the send timeout
+ * is evicted, its client reconnects and refetches.
+ */
+@Component
+public class ChangeEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeEventBroadcaster.class);
+    private static final int PUBLISH_QUEUE_SIZE = 10_000;
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT =
+            SseEmitter.event().comment("heartbeat").build();
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long heartbeatIntervalNanos;
+    private final long sendTimeoutNanos;
+    // Work for the dispatcher thread: published events and the first frame of new subscribers
+    private final BlockingQueue<Runnable> tasks = new ArrayBlockingQueue<>(PUBLISH_QUEUE_SIZE);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers;
+    private final Thread dispatcher;
+    private final Counter evicted;
+    private final Counter dropped;
+
+    public ChangeEventBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${habit-tracker.events.buffer-size:256}") int bufferSize,
+            @Value("${habit-tracker.events.max-subscribers:1000}") int maxSubscribers,
+            @Value("${habit-tracker.events.timeout-ms:1800000}") long timeoutMs,
+            @Value("${habit-tracker.events.heartbeat-interval-ms:30000}") long heartbeatIntervalMs,
+            @Value("${habit-tracker.events.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMs);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.writers = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("change-event-writer-", 0).factory());
+        Gauge.builder("events.subscribers", subscribers, Set::size)
+                .description("Connected change event streams")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("events.evicted")
+                .description("Event streams closed because the client did not keep up or a send stalled")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("events.dropped")
+                .description("Change events dropped because the dispatcher queue was full")
+                .register(meterRegistry);
+        this.dispatcher = Thread.ofPlatform().name("change-event-dispatcher").daemon().start(this::dispatch);
+    }
+
+    /**
+     * Publish an event to the current owner's streams once the current transaction commits
+     * (immediately without transaction)
+     */
+    public void publish(ChangeEvent event) {
+        long ownerId = OwnerContext.current();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(ownerId, event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(ownerId, event);
+            }
+        });
+    }
+
+    /**
+     * Open a new event stream for the changes of an owner
+     *
+     * @return the emitter, or empty if the subscriber limit is reached or the dispatcher is saturated
+     */
+    public Optional<SseEmitter> subscribe(long ownerId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(ownerId, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        // The dispatcher sends the first frame, which commits the response headers so the client
+        // knows the stream is open; the request thread never touches the buffer
+        if (!tasks.offer(() -> subscriber.offer(HEARTBEAT))) {
+            subscriber.close();
+            return Optional.empty();
+        }
+        return Optional.of(emitter);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.interrupt();
+        subscribers.forEach(subscriber -> {
+            subscriber.close();
+            subscriber.emitter.complete();
+        });
+        writers.shutdownNow();
+    }
+
+    private void enqueue(long ownerId, ChangeEvent event) {
+        if (!tasks.offer(() -> deliver(ownerId, event))) {
+            dropped.increment();
+            log.warn("Change event queue full, dropping {} event", event.type());
+        }
+    }
+
+    private void deliver(long ownerId, ChangeEvent event) {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame;
+        try {
+            frame = SseEmitter.event()
+                    .name(event.type())
+                    .data(objectMapper.writeValueAsString(event))
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("Serializing {} event failed", event.type(), e);
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.ownerId == ownerId) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    private void dispatch() {
+        long nextHeartbeat = System.nanoTime() + heartbeatIntervalNanos;
+        long sweepInterval = Math.max(1, Math.min(heartbeatIntervalNanos, sendTimeoutNanos / 2));
+        long nextSweep = System.nanoTime() + sweepInterval;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long wait = Math.min(nextHeartbeat, nextSweep) - System.nanoTime();
+                Runnable task = tasks.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                if (task != null) {
+                    task.run();
+                }
+                long now = System.nanoTime();
+                if (now - nextSweep >= 0) {
+                    subscribers.forEach(subscriber -> subscriber.evictIfStalled(now));
+                    nextSweep = now + sweepInterval;
+                }
+                // Keeps proxies from closing idle streams and detects closed connections
+                if (now - nextHeartbeat >= 0) {
+                    subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+                    nextHeartbeat = now + heartbeatIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Dispatching change event failed", e);
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final long ownerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // System.nanoTime() when the running send started, 0 while no send is running
+        private volatile long sendStarted;
+        private volatile boolean closed;
+
+        Subscriber(long ownerId, SseEmitter emitter) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        // Called by the dispatcher only; never blocks on the connection
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(frame)) {
+                evict("Evicting slow event stream subscriber");
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    Set<ResponseBodyEmitter.DataWithMediaType> frame;
+                    while (!closed && (frame = pending.poll()) != null) {
+                        sendStarted = System.nanoTime() | 1;
+                        emitter.send(frame);
+                        sendStarted = 0;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container completes the emitter
+                    close();
+                } finally {
+                    sendStarted = 0;
+                    draining.set(false);
+                }
+                // A frame offered after the last poll but before the flag was reset
+            } while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        // Called by the dispatcher; the stalled writer stays blocked until the container times
+        // out the write, but no longer holds up any other subscriber
+        void evictIfStalled(long now) {
+            long started = sendStarted;
+            if (!closed && started != 0 && now - started > sendTimeoutNanos) {
+                evict("Evicting event stream subscriber with a stalled send");
+            }
+        }
+
+        private void evict(String reason) {
+            evicted.increment();
+            log.debug(reason);
+            close();
+            writers.execute(emitter::complete);
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package htw.webtech.habit_tracker.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out monotonically increasing change sequence numbers for delta sync.
+ * Backed by the database sequence change_seq (declared on Tombstone), so the
+ * numbers are unique across application instances.
+ */
+@Component
+public class ChangeSequence {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+
+    public ChangeSequence(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect()
+                .getSequenceSupport()
+                .getSequenceNextValString("change_seq");
+    }
+
+    /**
+     * Draw the next change sequence number
+     */
+    public long next() {
+        Long value = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+        if (value == null) {
+            throw new IllegalStateException("Sequence change_seq returned no value");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,113 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Builds the dashboard and the yearly heatmap from two projection queries (completed days of
+ * the hot table and the archive in one statement, then the habits) without hydrating any
+ * entities. Long ranges read the completed days from the monthly rollup instead (see
+ * {@link MonthSummaryService}).
+ */
+@Service
+public class DashboardService {
+
+    private final HabitRepository habitRepository;
+    private final MonthSummaryService monthSummaries;
+    private final EntryArchiveService archiveService;
+
+    public DashboardService(HabitRepository habitRepository, MonthSummaryService monthSummaries,
+            EntryArchiveService archiveService) {
+        this.habitRepository = habitRepository;
+        this.monthSummaries = monthSummaries;
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Get all habits with one completion flag per day of the range ('1' = completed)
+     */
+    @Transactional(readOnly = true)
+    public List<Row> getDashboard(LocalDate startDate, LocalDate endDate) {
+        int days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+
+        Map<Long, char[]> matrix = new HashMap<>();
+        BiConsumer<Long, LocalDate> mark = (habitId, date) ->
+                matrix.computeIfAbsent(habitId, id -> emptyRow(days))[(int) ChronoUnit.DAYS.between(startDate, date)] = '1';
+        if (monthSummaries.covers(startDate, endDate)) {
+            monthSummaries.getCompletedDays(startDate, endDate)
+                    .forEach((habitId, dates) -> dates.forEach(date -> mark.accept(habitId, date)));
+        } else {
+            for (HabitEntryRepository.CompletedDay day : archiveService.getCompletedDays(startDate, endDate)) {
+                mark.accept(day.getHabitId(), day.getDate());
+            }
+        }
+
+        List<Row> rows = new ArrayList<>();
+        for (HabitRepository.HabitSummary habit : habitRepository.findAllSummaries()) {
+            char[] row = matrix.get(habit.getId());
+            rows.add(new Row(habit, new String(row != null ? row : emptyRow(days))));
+        }
+        return rows;
+    }
+
+    /**
+     * Get all habits with one bit per day of the year (bit n = day n + 1, least significant
+     * bit of each byte first), built in a single pass over the completed days
+     */
+    @Transactional(readOnly = true)
+    public List<HeatmapRow> getHeatmap(Year year) {
+        LocalDate startDate = year.atDay(1);
+        int bytes = (year.length() + 7) / 8;
+
+        LocalDate endDate = year.atDay(year.length());
+
+        Map<Long, byte[]> bitsets = new HashMap<>();
+        BiConsumer<Long, LocalDate> mark = (habitId, date) -> {
+            byte[] bits = bitsets.computeIfAbsent(habitId, id -> new byte[bytes]);
+            int index = date.getDayOfYear() - 1;
+            bits[index >> 3] |= (byte) (1 << (index & 7));
+        };
+        if (monthSummaries.covers(startDate, endDate)) {
+            // 12 rows per habit
+            monthSummaries.getCompletedDays(startDate, endDate)
+                    .forEach((habitId, dates) -> dates.forEach(date -> mark.accept(habitId, date)));
+        } else {
+            try (Stream<HabitEntryRepository.CompletedDay> days =
+                    archiveService.streamCompletedDays(startDate, endDate)) {
+                days.forEach(day -> mark.accept(day.getHabitId(), day.getDate()));
+            }
+        }
+
+        List<HeatmapRow> rows = new ArrayList<>();
+        for (HabitRepository.HabitSummary habit : habitRepository.findAllSummaries()) {
+            byte[] bits = bitsets.get(habit.getId());
+            rows.add(new HeatmapRow(habit.getId(), bits != null ? bits : new byte[bytes]));
+        }
+        return rows;
+    }
+
+    private static char[] emptyRow(int days) {
+        char[] row = new char[days];
+        Arrays.fill(row, '0');
+        return row;
+    }
+
+    public record Row(HabitRepository.HabitSummary habit, String days) {
+    }
+
+    public record HeatmapRow(Long habitId, byte[] bits) {
+    }
+}
@@ -0,0 +1,154 @@
+package htw.webtech.habit_tracker.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Version of an owner's data for conditional GETs, kept in one owner_version row per owner.
+ * Every write marks its owners changed, and the row is bumped just before the writing
+ * transaction commits. The version therefore changes with each committed write of that owner
+ * on any instance, also when a transaction commits after a reader computed its ETag. Reading
+ * it never touches the entry tables.
+ * <p>
+ * The bump runs after the flush, so the version row is the last lock a transaction takes and
+ * concurrent writers of one owner only queue for the commit. Toggles still in the write-behind
+ * buffer are not versioned; responses then carry no ETag.
+ * <p>
+ * The version is read in a read-only transaction, so with replica routing it comes from the
+ * same database as the response body read after it: a lagging replica yields an older ETag
+ * with its older body, never a stale body under the primary's newer ETag.
+ */
+@Component
+public class DataVersion {
+
+    private static final String SELECT = "SELECT version FROM owner_version WHERE owner_id = :ownerId";
+
+    private static final String UPDATE = "UPDATE owner_version SET version = version + 1 WHERE owner_id = :ownerId";
+
+    private static final String POSTGRES_INSERT = """
+            INSERT INTO owner_version (owner_id, version) VALUES (:ownerId, 0)
+            ON CONFLICT (owner_id) DO NOTHING""";
+
+    private static final String H2_INSERT = """
+            MERGE INTO owner_version t
+            USING (VALUES (CAST(:ownerId AS BIGINT))) AS s(owner_id)
+            ON t.owner_id = s.owner_id
+            WHEN NOT MATCHED THEN INSERT (owner_id, version) VALUES (s.owner_id, 0)""";
+
+    // Other databases: still fails on a concurrent first write of an owner
+    private static final String PORTABLE_INSERT = """
+            INSERT INTO owner_version (owner_id, version)
+            SELECT :ownerId, 0 WHERE NOT EXISTS (SELECT 1 FROM owner_version WHERE owner_id = :ownerId)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ToggleBuffer toggleBuffer;
+    private final String insertSql;
+    private final boolean duplicateMeansPresent;
+
+    public DataVersion(NamedParameterJdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+            EntityManager entityManager, ToggleBuffer toggleBuffer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.toggleBuffer = toggleBuffer;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            this.insertSql = POSTGRES_INSERT;
+            this.duplicateMeansPresent = false;
+        } else if (dialect instanceof H2Dialect) {
+            this.insertSql = H2_INSERT;
+            this.duplicateMeansPresent = true;
+        } else {
+            this.insertSql = PORTABLE_INSERT;
+            this.duplicateMeansPresent = false;
+        }
+    }
+
+    /**
+     * Current version of the current owner's data as a quoted ETag value, or null while the
+     * owner has buffered toggles
+     */
+    @Transactional(readOnly = true)
+    public String etag() {
+        if (toggleBuffer.isEnabled() && toggleBuffer.hasStates()) {
+            return null;
+        }
+        List<Long> version = jdbcTemplate.queryForList(SELECT,
+                new MapSqlParameterSource("ownerId", OwnerContext.current()), Long.class);
+        return "\"" + (version.isEmpty() ? 0 : version.get(0)) + "\"";
+    }
+
+    /**
+     * Bump the current owner's version when the current transaction commits (immediately
+     * without transaction)
+     */
+    public void markChanged() {
+        markChanged(OwnerContext.current());
+    }
+
+    /**
+     * Bump an owner's version when the current transaction commits, once per transaction
+     */
+    public void markChanged(long ownerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(ownerId);
+            return;
+        }
+        // Synchronizations belong to the current transaction, a suspended one keeps its own
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Bump bump) {
+                bump.owners.add(ownerId);
+                return;
+            }
+        }
+        Bump bump = new Bump();
+        bump.owners.add(ownerId);
+        TransactionSynchronizationManager.registerSynchronization(bump);
+    }
+
+    private void bump(long ownerId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ownerId", ownerId);
+        if (jdbcTemplate.update(UPDATE, params) > 0) {
+            return;
+        }
+        // First write of the owner
+        try {
+            jdbcTemplate.update(insertSql, params);
+        } catch (DuplicateKeyException e) {
+            // As for habit_stats: H2's MERGE fails once a concurrent insert of the key commits
+            if (!duplicateMeansPresent) {
+                throw e;
+            }
+        }
+        jdbcTemplate.update(UPDATE, params);
+    }
+
+    // Owners changed by one transaction
+    private final class Bump implements TransactionSynchronization {
+
+        private final Set<Long> owners = new LinkedHashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entityManager.flush();
+            owners.forEach(DataVersion.this::bump);
+        }
+    }
+}
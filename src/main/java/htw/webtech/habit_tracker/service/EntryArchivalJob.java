@@ -0,0 +1,84 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.config.ShardRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves entries older than the archive horizon from habit_entry to habit_entry_archive
+ * (see {@link EntryArchiveService}), batch-size rows per transaction. Works across all
+ * owners, and with sharding on every shard in turn.
+ * <p>
+ * Archived entries are read-only, so the archive must lie behind the edit window.
+ */
+@Component
+@ConditionalOnProperty(name = "habit-tracker.entries.archive.enabled", havingValue = "true")
+public class EntryArchivalJob {
+
+    private static final Logger log = LoggerFactory.getLogger(EntryArchivalJob.class);
+
+    private final EntryArchiveService archiveService;
+    private final ObjectProvider<ShardRoutingDataSource> shards;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public EntryArchivalJob(EntryArchiveService archiveService, ObjectProvider<ShardRoutingDataSource> shards,
+            @Value("${habit-tracker.entries.edit-window-days:0}") int editWindowDays,
+            @Value("${habit-tracker.entries.archive.batch-size:1000}") int batchSize,
+            @Value("${habit-tracker.entries.archive.max-batches-per-run:100}") int maxBatches) {
+        if (editWindowDays <= 0 || editWindowDays > archiveService.getAfterDays()) {
+            throw new IllegalStateException("habit-tracker.entries.archive needs an edit window "
+                    + "(habit-tracker.entries.edit-window-days) of at most archive.after-days");
+        }
+        this.archiveService = archiveService;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${habit-tracker.entries.archive.interval-ms:86400000}",
+            initialDelayString = "${habit-tracker.entries.archive.initial-delay-ms:60000}")
+    public void run() {
+        archive();
+    }
+
+    /**
+     * Move entries before the horizon in batches, at most max-batches-per-run per shard
+     *
+     * @return the number of archived entries
+     */
+    public int archive() {
+        ShardRoutingDataSource router = shards.getIfAvailable();
+        if (router == null) {
+            return OwnerContext.callAs(OwnerContext.ALL_OWNERS, this::archiveShard);
+        }
+        AtomicInteger total = new AtomicInteger();
+        for (String shard : router.shardNames()) {
+            ShardRoutingDataSource.runOnShard(shard,
+                    () -> total.addAndGet(OwnerContext.callAs(OwnerContext.ALL_OWNERS, this::archiveShard)));
+        }
+        return total.get();
+    }
+
+    private int archiveShard() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int moved = archiveService.archiveBatch(batchSize);
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} entries dated before {}", total, archiveService.getHorizon());
+        }
+        return total;
+    }
+}
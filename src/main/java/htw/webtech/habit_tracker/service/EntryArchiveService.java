@@ -0,0 +1,200 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.model.ArchivedHabitEntry;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryArchiveRepository;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier of habit entries. Entries dated before the horizon (today - after-days) are moved
+ * to habit_entry_archive by the {@link EntryArchivalJob}. Every history read unions the archive
+ * with the hot table; range reads only look there when the range reaches before the horizon,
+ * so recent reads stay on the small hot table.
+ */
+@Service
+public class EntryArchiveService {
+
+    private final HabitEntryRepository entryRepository;
+    private final HabitEntryArchiveRepository archiveRepository;
+    private final int afterDays;
+
+    public EntryArchiveService(HabitEntryRepository entryRepository, HabitEntryArchiveRepository archiveRepository,
+            @Value("${habit-tracker.entries.archive.after-days:365}") int afterDays) {
+        this.entryRepository = entryRepository;
+        this.archiveRepository = archiveRepository;
+        this.afterDays = afterDays;
+    }
+
+    /**
+     * First day that is never archived
+     */
+    public LocalDate getHorizon() {
+        return LocalDate.now().minusDays(afterDays);
+    }
+
+    public int getAfterDays() {
+        return afterDays;
+    }
+
+    /**
+     * Archived entries of a habit (all habits if null) within a date range, as unmanaged entries
+     */
+    @Transactional(readOnly = true)
+    public List<HabitEntry> getEntries(Long habitId, LocalDate startDate, LocalDate endDate) {
+        LocalDate horizon = getHorizon();
+        if (!startDate.isBefore(horizon)) {
+            return List.of();
+        }
+        LocalDate end = archivedEnd(endDate, horizon);
+        List<ArchivedHabitEntry> archived = habitId != null
+                ? archiveRepository.findByHabitIdAndDateBetween(habitId, startDate, end)
+                : archiveRepository.findByDateBetween(startDate, end);
+        return toEntries(archived);
+    }
+
+    /**
+     * All archived entries of a habit (all habits if null), as unmanaged entries
+     */
+    @Transactional(readOnly = true)
+    public List<HabitEntry> getEntries(Long habitId) {
+        return toEntries(habitId != null
+                ? archiveRepository.findByHabitId(habitId)
+                : archiveRepository.findAllOfVisibleHabits());
+    }
+
+    /**
+     * Archived entries with a change sequence number above changeSeq, as unmanaged entries in
+     * sequence order. Archiving keeps the number, so a delta sync still delivers an entry that
+     * changed after the client's cursor and was archived since.
+     */
+    @Transactional(readOnly = true)
+    public List<HabitEntry> getEntriesChangedAfter(long changeSeq) {
+        return toEntries(archiveRepository.findByChangeSeqGreaterThanOrderByChangeSeq(changeSeq));
+    }
+
+    /**
+     * Up to limit archived entries of a habit ordered by (date, id), starting after the given
+     * position (null = from the start), as unmanaged entries
+     */
+    @Transactional(readOnly = true)
+    public Slice<HabitEntry> getEntriesAfter(Long habitId, LocalDate afterDate, Long afterId, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        if (afterDate == null) {
+            return archiveRepository.findByHabitIdOrderByDateAscIdAsc(habitId, page).map(ArchivedHabitEntry::toEntry);
+        }
+        if (!afterDate.isBefore(getHorizon())) {
+            return new SliceImpl<>(List.of(), page, false);
+        }
+        return archiveRepository.findByHabitIdAfter(habitId, afterDate, afterId, page).map(ArchivedHabitEntry::toEntry);
+    }
+
+    /**
+     * Completed days of all habits within a date range from the hot table and the archive, in
+     * one statement; the archive is only read when the range reaches before the horizon
+     */
+    @Transactional(readOnly = true)
+    public List<HabitEntryRepository.CompletedDay> getCompletedDays(LocalDate startDate, LocalDate endDate) {
+        if (!startDate.isBefore(getHorizon())) {
+            return entryRepository.findCompletedDaysBetween(startDate, endDate);
+        }
+        return entryRepository.findCompletedDaysWithArchiveBetween(startDate, endDate);
+    }
+
+    /**
+     * Completed days of all habits within a date range from the hot table and the archive as
+     * one cursor-backed stream; the caller closes it within its transaction
+     */
+    @Transactional(readOnly = true)
+    public Stream<HabitEntryRepository.CompletedDay> streamCompletedDays(LocalDate startDate, LocalDate endDate) {
+        if (!startDate.isBefore(getHorizon())) {
+            return entryRepository.streamCompletedDaysBetween(startDate, endDate);
+        }
+        return entryRepository.streamCompletedDaysWithArchiveBetween(startDate, endDate);
+    }
+
+    /**
+     * Archived entries within a date range ordered by (date, id) as a cursor-backed stream;
+     * the caller closes it within its transaction
+     */
+    @Transactional(readOnly = true)
+    public Stream<HabitEntryRepository.EntryRow> streamRows(LocalDate startDate, LocalDate endDate) {
+        LocalDate horizon = getHorizon();
+        if (!startDate.isBefore(horizon)) {
+            return Stream.empty();
+        }
+        return archiveRepository.streamByDateBetween(startDate, archivedEnd(endDate, horizon));
+    }
+
+    /**
+     * All completed dates of a habit, hot and archived, in date order
+     */
+    @Transactional(readOnly = true)
+    public List<LocalDate> getCompletedDates(Long habitId) {
+        return merge(archiveRepository.findCompletedDates(habitId), entryRepository.findCompletedDates(habitId));
+    }
+
+    /**
+     * Completed dates of a habit within a date range, hot and archived, in date order
+     */
+    @Transactional(readOnly = true)
+    public List<LocalDate> getCompletedDates(Long habitId, LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> hot = entryRepository.findCompletedDatesBetween(habitId, startDate, endDate);
+        LocalDate horizon = getHorizon();
+        if (!startDate.isBefore(horizon)) {
+            return hot;
+        }
+        LocalDate end = archivedEnd(endDate, horizon);
+        return merge(archiveRepository.findCompletedDatesBetween(habitId, startDate, end), hot);
+    }
+
+    /**
+     * Move up to limit entries dated before the horizon, of all owners, to the archive
+     *
+     * @return the number of moved entries
+     */
+    @Transactional
+    public int archiveBatch(int limit) {
+        List<Long> ids = entryRepository.findIdsBefore(getHorizon(), PageRequest.ofSize(limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archiveRepository.copyFromEntries(ids);
+        entryRepository.deleteAllByIdInBatch(ids);
+        return ids.size();
+    }
+
+    // Nothing on or after the horizon is archived
+    private static LocalDate archivedEnd(LocalDate endDate, LocalDate horizon) {
+        return endDate.isBefore(horizon) ? endDate : horizon.minusDays(1);
+    }
+
+    private static List<HabitEntry> toEntries(List<ArchivedHabitEntry> archived) {
+        return archived.stream()
+                .map(ArchivedHabitEntry::toEntry)
+                .collect(Collectors.toList());
+    }
+
+    private static List<LocalDate> merge(List<LocalDate> archived, List<LocalDate> hot) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        // Both sorted and disjoint; archived days usually all precede the hot ones
+        List<LocalDate> dates = new ArrayList<>(archived.size() + hot.size());
+        dates.addAll(archived);
+        dates.addAll(hot);
+        dates.sort(null);
+        return dates;
+    }
+}
@@ -0,0 +1,77 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.config.ShardRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes entries with completed = false, which carry no information because a missing
+ * entry means the same. Runs in short transactions of batch-size rows so it never holds
+ * many locks at once. Works across all owners, and with sharding on every shard in turn.
+ */
+@Component
+@ConditionalOnProperty(name = "habit-tracker.entries.compaction.enabled", havingValue = "true")
+public class EntryCompactionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(EntryCompactionJob.class);
+
+    private final HabitEntryService entryService;
+    private final ObjectProvider<ShardRoutingDataSource> shards;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public EntryCompactionJob(HabitEntryService entryService, ObjectProvider<ShardRoutingDataSource> shards,
+            @Value("${habit-tracker.entries.compaction.batch-size:500}") int batchSize,
+            @Value("${habit-tracker.entries.compaction.max-batches-per-run:100}") int maxBatches) {
+        this.entryService = entryService;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${habit-tracker.entries.compaction.interval-ms:3600000}",
+            initialDelayString = "${habit-tracker.entries.compaction.initial-delay-ms:60000}")
+    public void run() {
+        compact();
+    }
+
+    /**
+     * Delete unchecked entries in batches, at most max-batches-per-run per shard
+     *
+     * @return the number of deleted entries
+     */
+    public int compact() {
+        ShardRoutingDataSource router = shards.getIfAvailable();
+        if (router == null) {
+            return OwnerContext.callAs(OwnerContext.ALL_OWNERS, this::compactShard);
+        }
+        AtomicInteger total = new AtomicInteger();
+        for (String shard : router.shardNames()) {
+            ShardRoutingDataSource.runOnShard(shard,
+                    () -> total.addAndGet(OwnerContext.callAs(OwnerContext.ALL_OWNERS, this::compactShard)));
+        }
+        return total.get();
+    }
+
+    private int compactShard() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted = entryService.purgeUncompleted(batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Compaction removed {} unchecked entries", total);
+        }
+        return total;
+    }
+}
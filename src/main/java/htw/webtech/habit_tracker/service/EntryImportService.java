@@ -0,0 +1,412 @@
+package htw.webtech.habit_tracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import htw.webtech.habit_tracker.model.Habit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports historical entries from CSV or NDJSON, read line by line.
+ * Habit names are resolved once per import; parsed rows are written chunk-size rows at a time
+ * through {@link HabitEntryService#importBatch}, one transaction and one batched upsert per
+ * chunk, so only the current chunk is held in memory. Rows publish no events; month masks and
+ * stats of the changed habits are recomputed once after the last chunk.
+ */
+@Service
+public class EntryImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(EntryImportService.class);
+
+    private final HabitEntryService entryService;
+    private final HabitService habitService;
+    private final EntryArchiveService archiveService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final boolean archiveEnabled;
+
+    public EntryImportService(HabitEntryService entryService, HabitService habitService,
+            EntryArchiveService archiveService, ObjectMapper objectMapper,
+            @Value("${habit-tracker.import.chunk-size:500}") int chunkSize,
+            @Value("${habit-tracker.entries.archive.enabled:false}") boolean archiveEnabled) {
+        this.entryService = entryService;
+        this.habitService = habitService;
+        this.archiveService = archiveService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.archiveEnabled = archiveEnabled;
+    }
+
+    /**
+     * Import all rows of the reader for the current owner. CSV needs a header naming the columns
+     * (habitId or habit, date, optional completed; others are ignored, so exports can be
+     * re-imported), NDJSON one object per line with the same fields. A missing completed means
+     * completed. Dates outside the edit window are rejected unless ignoreEditWindow is set;
+     * archived dates are always rejected.
+     *
+     * @return the totals of the import
+     */
+    public Progress importEntries(BufferedReader reader, Format format, boolean ignoreEditWindow,
+            Listener listener) throws IOException {
+        Habits habits = new Habits(habitService.getAllHabits());
+        Chunk chunk = new Chunk(ignoreEditWindow);
+        Counts counts = new Counts();
+        int[] columns = null;
+        int lineNumber = 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && columns == null) {
+                    columns = parseHeader(line);
+                    if (columns == null) {
+                        listener.onError(new RowError(lineNumber,
+                                "CSV header needs the columns habitId or habit, and date"));
+                        return counts.toProgress();
+                    }
+                    continue;
+                }
+
+                counts.processed++;
+                try {
+                    Row row = format == Format.CSV ? parseCsv(line, columns) : parseNdjson(line);
+                    chunk.add(lineNumber, toChange(row, habits));
+                } catch (IllegalArgumentException e) {
+                    counts.failed++;
+                    listener.onError(new RowError(lineNumber, e.getMessage()));
+                }
+                if (chunk.size() >= chunkSize) {
+                    write(chunk, habits, counts, listener);
+                }
+            }
+            write(chunk, habits, counts, listener);
+        } finally {
+            // Chunks are committed as the import goes, so a broken upload still needs the recompute
+            recompute(chunk.changedHabits);
+        }
+        log.info("Imported {} of {} entry rows ({} unchanged, {} failed)",
+                counts.imported, counts.processed, counts.unchanged, counts.failed);
+        return counts.toProgress();
+    }
+
+    private void recompute(Set<Long> changedHabits) {
+        if (changedHabits.isEmpty()) {
+            return;
+        }
+        try {
+            entryService.recomputeImported(changedHabits);
+        } catch (RuntimeException e) {
+            log.warn("Recomputing {} habits after an import failed", changedHabits.size(), e);
+        }
+    }
+
+    private void write(Chunk chunk, Habits habits, Counts counts, Listener listener) {
+        if (chunk.size() == 0) {
+            return;
+        }
+        // Rows with a date that may not be written are reported without reaching the database
+        List<String> errors = new ArrayList<>(chunk.size());
+        List<HabitEntryService.EntryChange> valid = new ArrayList<>();
+        for (HabitEntryService.EntryChange change : chunk.changes) {
+            String error = dateError(change.date(), chunk.ignoreEditWindow);
+            errors.add(error);
+            if (error == null) {
+                valid.add(change);
+            }
+        }
+        List<HabitEntryService.BatchStatus> statuses;
+        try {
+            statuses = valid.isEmpty() ? List.of() : importChunk(valid, habits.byId);
+        } catch (RuntimeException e) {
+            log.warn("Importing {} entry rows failed", valid.size(), e);
+            statuses = null;
+        }
+        int next = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = errors.get(i);
+            HabitEntryService.BatchStatus status = null;
+            if (error == null) {
+                status = statuses == null ? null : statuses.get(next);
+                next++;
+                error = status == null ? "Could not be saved" : errorOf(status);
+            }
+            if (error != null) {
+                counts.failed++;
+                listener.onError(new RowError(chunk.lines.get(i), error));
+            } else if (status == HabitEntryService.BatchStatus.UNCHANGED) {
+                counts.unchanged++;
+            } else {
+                counts.imported++;
+                chunk.changedHabits.add(chunk.changes.get(i).habitId());
+            }
+        }
+        chunk.clear();
+        listener.onProgress(counts.toProgress());
+    }
+
+    private List<HabitEntryService.BatchStatus> importChunk(List<HabitEntryService.EntryChange> changes,
+            Map<Long, Habit> habits) {
+        try {
+            return entryService.importBatch(changes, habits);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent write created one of the (habit, date) rows or deleted a habit; the
+            // retry reads the current rows and updates instead
+            return entryService.importBatch(changes, habits);
+        }
+    }
+
+    private String dateError(LocalDate date, boolean ignoreEditWindow) {
+        // Archived entries are read-only, the hot table must not get rows before the horizon
+        if (archiveEnabled && date.isBefore(archiveService.getHorizon())) {
+            return "Date is archived";
+        }
+        if (!ignoreEditWindow && !entryService.isEditable(date)) {
+            return "Date is outside the edit window";
+        }
+        return null;
+    }
+
+    private static String errorOf(HabitEntryService.BatchStatus status) {
+        return switch (status) {
+            case HABIT_NOT_FOUND -> "Habit not found";
+            default -> null;
+        };
+    }
+
+    private static HabitEntryService.EntryChange toChange(Row row, Habits habits) {
+        Long habitId = row.habitId() != null ? row.habitId() : habits.resolve(row.habitName());
+        if (row.date() == null) {
+            throw new IllegalArgumentException("date is required");
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(row.date());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + row.date());
+        }
+        return new HabitEntryService.EntryChange(habitId, date, row.completed());
+    }
+
+    // Column positions of habitId, habit, date and completed (-1 = absent), or null if unusable
+    private static int[] parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        int[] columns = {-1, -1, -1, -1};
+        for (int i = 0; i < names.size(); i++) {
+            switch (names.get(i).trim().toLowerCase()) {
+                case "habitid" -> columns[0] = i;
+                case "habit" -> columns[1] = i;
+                case "date" -> columns[2] = i;
+                case "completed" -> columns[3] = i;
+                default -> {
+                }
+            }
+        }
+        return (columns[0] >= 0 || columns[1] >= 0) && columns[2] >= 0 ? columns : null;
+    }
+
+    private static Row parseCsv(String line, int[] columns) {
+        List<String> fields = splitCsv(line);
+        String habitId = field(fields, columns[0]);
+        Long id = null;
+        if (habitId != null) {
+            try {
+                id = Long.parseLong(habitId);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid habitId: " + habitId);
+            }
+        }
+        String date = field(fields, columns[2]);
+        return new Row(id, field(fields, columns[1]), date, parseCompleted(field(fields, columns[3])));
+    }
+
+    private Row parseNdjson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        JsonNode habitId = node.path("habitId");
+        if (!habitId.isMissingNode() && !habitId.isNull() && !habitId.isIntegralNumber()) {
+            throw new IllegalArgumentException("Invalid habitId: " + habitId);
+        }
+        JsonNode completed = node.path("completed");
+        if (!completed.isMissingNode() && !completed.isNull() && !completed.isBoolean()) {
+            throw new IllegalArgumentException("Invalid completed: " + completed);
+        }
+        return new Row(
+                habitId.isIntegralNumber() ? habitId.asLong() : null,
+                node.path("habit").isTextual() ? node.path("habit").asText() : null,
+                node.path("date").isTextual() ? node.path("date").asText() : null,
+                !completed.isBoolean() || completed.asBoolean());
+    }
+
+    private static boolean parseCompleted(String value) {
+        if (value == null) {
+            return true;
+        }
+        return switch (value.toLowerCase()) {
+            case "true", "1" -> true;
+            case "false", "0" -> false;
+            default -> throw new IllegalArgumentException("Invalid completed: " + value);
+        };
+    }
+
+    // Trimmed field, null when the column is absent or empty
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180 fields of a single line: quoted fields may contain commas and "" for a quote
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * Receives row errors as they are found and the running totals after every written chunk
+     */
+    public interface Listener {
+        void onError(RowError error);
+
+        void onProgress(Progress progress);
+    }
+
+    /**
+     * Running totals: processed rows, written (created or changed), unchanged and failed rows
+     */
+    public record Progress(long processed, long imported, long unchanged, long failed) {
+    }
+
+    public record RowError(int line, String error) {
+    }
+
+    private record Row(Long habitId, String habitName, String date, boolean completed) {
+    }
+
+    // Habits of the owner by id and name; names used by several habits cannot be resolved
+    private static final class Habits {
+
+        private final Map<Long, Habit> byId = new HashMap<>();
+        private final Map<String, Long> byName = new HashMap<>();
+        private final Set<String> ambiguous = new HashSet<>();
+
+        Habits(List<Habit> habits) {
+            for (Habit habit : habits) {
+                byId.put(habit.getId(), habit);
+                if (byName.putIfAbsent(habit.getName(), habit.getId()) != null) {
+                    ambiguous.add(habit.getName());
+                }
+            }
+        }
+
+        Long resolve(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("habitId or habit is required");
+            }
+            if (ambiguous.contains(name)) {
+                throw new IllegalArgumentException("Habit name is ambiguous, use habitId: " + name);
+            }
+            Long id = byName.get(name);
+            if (id == null) {
+                throw new IllegalArgumentException("Habit not found: " + name);
+            }
+            return id;
+        }
+    }
+
+    // Rows waiting to be written, plus the habits changed by the import so far
+    private static final class Chunk {
+
+        private final List<HabitEntryService.EntryChange> changes = new ArrayList<>();
+        private final List<Integer> lines = new ArrayList<>();
+        private final Set<Long> changedHabits = new HashSet<>();
+        private final boolean ignoreEditWindow;
+
+        Chunk(boolean ignoreEditWindow) {
+            this.ignoreEditWindow = ignoreEditWindow;
+        }
+
+        void add(int line, HabitEntryService.EntryChange change) {
+            lines.add(line);
+            changes.add(change);
+        }
+
+        int size() {
+            return changes.size();
+        }
+
+        void clear() {
+            changes.clear();
+            lines.clear();
+        }
+    }
+
+    private static final class Counts {
+
+        private long processed;
+        private long imported;
+        private long unchanged;
+        private long failed;
+
+        Progress toProgress() {
+            return new Progress(processed, imported, unchanged, failed);
+        }
+    }
+}
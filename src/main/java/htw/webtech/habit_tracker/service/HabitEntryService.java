@@ -2,51 +2,165 @@ package htw.webtech.habit_tracker.service;
 
 import htw.webtech.habit_tracker.model.Habit;
 import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.model.Tombstone;
 import htw.webtech.habit_tracker.repository.HabitEntryRepository;
 import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.repository.TombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class HabitEntryService {
 
+    private static final Comparator<HabitEntry> BY_DATE_AND_ID =
+            Comparator.comparing(HabitEntry::getDate).thenComparing(HabitEntry::getId);
+    private static final Comparator<HabitEntryRepository.EntryRow> ROW_BY_DATE_AND_ID =
+            Comparator.comparing(HabitEntryRepository.EntryRow::getDate)
+                    .thenComparing(HabitEntryRepository.EntryRow::getId);
+
     private final HabitEntryRepository entryRepository;
     private final HabitRepository habitRepository;
+    private final HabitService habitService;
+    private final HabitStatsService statsService;
+    private final TombstoneRepository tombstoneRepository;
+    private final ChangeSequence changeSequence;
+    private final DataVersion dataVersion;
+    private final ToggleBuffer toggleBuffer;
+    private final ChangeEventBroadcaster changeEvents;
+    private final EntryArchiveService archiveService;
+    private final MonthSummaryService monthSummaries;
+    private final boolean nativeUpsert;
+    private final boolean sparse;
+    private final int editWindowDays;
 
-    public HabitEntryService(HabitEntryRepository entryRepository, HabitRepository habitRepository) {
+    public HabitEntryService(HabitEntryRepository entryRepository, HabitRepository habitRepository,
+            HabitService habitService, HabitStatsService statsService, TombstoneRepository tombstoneRepository,
+            ChangeSequence changeSequence, DataVersion dataVersion, ToggleBuffer toggleBuffer,
+            ChangeEventBroadcaster changeEvents, EntryArchiveService archiveService,
+            MonthSummaryService monthSummaries,
+            @Value("${habit-tracker.entries.native-upsert:true}") boolean nativeUpsert,
+            @Value("${habit-tracker.entries.sparse:false}") boolean sparse,
+            @Value("${habit-tracker.entries.edit-window-days:0}") int editWindowDays) {
         this.entryRepository = entryRepository;
         this.habitRepository = habitRepository;
+        this.habitService = habitService;
+        this.statsService = statsService;
+        this.tombstoneRepository = tombstoneRepository;
+        this.changeSequence = changeSequence;
+        this.dataVersion = dataVersion;
+        this.toggleBuffer = toggleBuffer;
+        this.changeEvents = changeEvents;
+        this.archiveService = archiveService;
+        this.monthSummaries = monthSummaries;
+        this.nativeUpsert = nativeUpsert && entryRepository.supportsUpsert();
+        this.sparse = sparse;
+        this.editWindowDays = editWindowDays;
     }
 
     /**
-     * Get all entries for a specific habit
+     * Get all entries for a specific habit, including archived entries
      */
+    @Transactional(readOnly = true)
     public List<HabitEntry> getEntriesForHabit(Long habitId) {
-        return entryRepository.findByHabitId(habitId);
+        return withBuffered(withArchived(entryRepository.findByHabitId(habitId), archiveService.getEntries(habitId)),
+                toggleBuffer.find(habitId, LocalDate.MIN, LocalDate.MAX));
+    }
+
+    /**
+     * Get up to limit entries for a habit ordered by (date, id), starting after the given
+     * position (null = from the start), including archived entries
+     */
+    @Transactional(readOnly = true)
+    public Slice<HabitEntry> getEntriesForHabitAfter(Long habitId, LocalDate afterDate, Long afterId, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        Slice<HabitEntry> hot = afterDate == null
+                ? entryRepository.findByHabitIdOrderByDateAscIdAsc(habitId, page)
+                : entryRepository.findByHabitIdAfter(habitId, afterDate, afterId, page);
+        Slice<HabitEntry> archived = archiveService.getEntriesAfter(habitId, afterDate, afterId, limit);
+        if (archived.getNumberOfElements() == 0) {
+            return hot;
+        }
+        // Each slice holds the first limit entries of its table after the position, so the
+        // first limit of both together are the page
+        List<HabitEntry> merged = new ArrayList<>(archived.getContent());
+        merged.addAll(hot.getContent());
+        merged.sort(BY_DATE_AND_ID);
+        boolean hasNext = merged.size() > limit || archived.hasNext() || hot.hasNext();
+        return new SliceImpl<>(merged.subList(0, Math.min(limit, merged.size())), page, hasNext);
     }
 
     /**
-     * Get entries for a habit within a date range
+     * Get entries for a habit within a date range, including archived entries
      */
+    @Transactional(readOnly = true)
     public List<HabitEntry> getEntriesForHabitInRange(Long habitId, LocalDate startDate, LocalDate endDate) {
-        return entryRepository.findByHabitIdAndDateBetween(habitId, startDate, endDate);
+        return withBuffered(withArchived(entryRepository.findByHabitIdAndDateBetween(habitId, startDate, endDate),
+                        archiveService.getEntries(habitId, startDate, endDate)),
+                toggleBuffer.find(habitId, startDate, endDate));
     }
 
     /**
      * Get all entries for a specific date (all habits)
      */
+    @Transactional(readOnly = true)
     public List<HabitEntry> getEntriesForDate(LocalDate date) {
-        return entryRepository.findByDate(date);
+        return withBuffered(entryRepository.findByDate(date), toggleBuffer.find(null, date, date));
     }
 
     /**
-     * Get all entries within a date range (for dashboard/overview)
+     * Get all entries within a date range (for dashboard/overview), including archived entries
      */
+    @Transactional(readOnly = true)
     public List<HabitEntry> getEntriesInRange(LocalDate startDate, LocalDate endDate) {
-        return entryRepository.findByDateBetween(startDate, endDate);
+        return withBuffered(withArchived(entryRepository.findByDateBetween(startDate, endDate),
+                        archiveService.getEntries(null, startDate, endDate)),
+                toggleBuffer.find(null, startDate, endDate));
+    }
+
+    /**
+     * Stream all entries within a date range, including archived entries, to the consumer in
+     * (date, id) order without loading them into memory
+     */
+    @Transactional(readOnly = true)
+    public void exportEntries(LocalDate startDate, LocalDate endDate, Consumer<HabitEntryRepository.EntryRow> consumer) {
+        try (Stream<HabitEntryRepository.EntryRow> archived = archiveService.streamRows(startDate, endDate);
+                Stream<HabitEntryRepository.EntryRow> hot = entryRepository.streamByDateBetween(startDate, endDate)) {
+            // Both cursors are ordered; days not yet archived may interleave with archived ones
+            Iterator<HabitEntryRepository.EntryRow> a = archived.iterator();
+            Iterator<HabitEntryRepository.EntryRow> h = hot.iterator();
+            HabitEntryRepository.EntryRow nextArchived = a.hasNext() ? a.next() : null;
+            HabitEntryRepository.EntryRow nextHot = h.hasNext() ? h.next() : null;
+            while (nextArchived != null || nextHot != null) {
+                if (nextHot == null || (nextArchived != null && ROW_BY_DATE_AND_ID.compare(nextArchived, nextHot) < 0)) {
+                    consumer.accept(nextArchived);
+                    nextArchived = a.hasNext() ? a.next() : null;
+                } else {
+                    consumer.accept(nextHot);
+                    nextHot = h.hasNext() ? h.next() : null;
+                }
+            }
+        }
     }
 
     /**
@@ -54,24 +168,57 @@ public class HabitEntryService {
      * 
      * @return the updated/created entry, or empty if habit not found
      */
+    @Transactional
     public Optional<HabitEntry> toggleEntry(Long habitId, LocalDate date) {
-        Optional<Habit> habitOpt = habitRepository.findById(habitId);
+        Optional<HabitEntry> result = toggle(habitId, date);
+        result.ifPresent(entry -> changeEvents.publish(ChangeEvent.entry(entry)));
+        return result;
+    }
+
+    private Optional<HabitEntry> toggle(Long habitId, LocalDate date) {
+        requireEditable(date);
+        dataVersion.markChanged();
+        // Cached lookup, the habit definition is only read
+        Optional<Habit> habitOpt = habitService.getHabitById(habitId);
         if (habitOpt.isEmpty()) {
             return Optional.empty();
         }
+        if (toggleBuffer.isEnabled()) {
+            boolean completed = toggleBuffer.toggle(habitId, date, () -> entryRepository
+                    .findByHabitIdAndDate(habitId, date).map(HabitEntry::isCompleted).orElse(false));
+            return Optional.of(bufferedEntry(habitId, date, completed));
+        }
+        if (sparse) {
+            Optional<HabitEntry> existing = entryRepository.findByHabitIdAndDate(habitId, date);
+            if (existing.isPresent() && existing.get().isCompleted()) {
+                return Optional.of(removeEntry(habitOpt.get(), existing.get()));
+            }
+            return nativeUpsert
+                    ? applyUpsert(habitOpt.get(), date, entryRepository.upsertSet(OwnerContext.current(), habitId, date, true))
+                    : Optional.of(writeEntry(habitOpt.get(), date, true, existing));
+        }
+        if (nativeUpsert) {
+            return applyUpsert(habitOpt.get(), date, entryRepository.upsertToggle(OwnerContext.current(), habitId, date));
+        }
 
         Optional<HabitEntry> existingEntry = entryRepository.findByHabitIdAndDate(habitId, date);
 
+        HabitEntry saved;
         if (existingEntry.isPresent()) {
             // Toggle existing entry
             HabitEntry entry = existingEntry.get();
             entry.setCompleted(!entry.isCompleted());
-            return Optional.of(entryRepository.save(entry));
+            entry.setChangeSeq(changeSequence.next());
+            saved = entryRepository.save(entry);
         } else {
             // Create new entry as completed
-            HabitEntry newEntry = new HabitEntry(habitOpt.get(), date, true);
-            return Optional.of(entryRepository.save(newEntry));
+            HabitEntry newEntry = new HabitEntry(habitRepository.getReferenceById(habitId), date, true);
+            newEntry.setChangeSeq(changeSequence.next());
+            saved = entryRepository.save(newEntry);
         }
+
+        entryChanged(habitOpt.get(), date, !saved.isCompleted(), saved.isCompleted());
+        return Optional.of(saved);
     }
 
     /**
@@ -79,23 +226,395 @@ public class HabitEntryService {
      * 
      * @return the updated/created entry, or empty if habit not found
      */
+    @Transactional
     public Optional<HabitEntry> setEntry(Long habitId, LocalDate date, boolean completed) {
-        Optional<Habit> habitOpt = habitRepository.findById(habitId);
+        Optional<HabitEntry> result = set(habitId, date, completed);
+        result.ifPresent(entry -> changeEvents.publish(ChangeEvent.entry(entry)));
+        return result;
+    }
+
+    private Optional<HabitEntry> set(Long habitId, LocalDate date, boolean completed) {
+        requireEditable(date);
+        dataVersion.markChanged();
+        Optional<Habit> habitOpt = habitService.getHabitById(habitId);
         if (habitOpt.isEmpty()) {
             return Optional.empty();
         }
+        if (toggleBuffer.isEnabled()) {
+            toggleBuffer.set(habitId, date, completed);
+            return Optional.of(bufferedEntry(habitId, date, completed));
+        }
+        if (sparse && !completed) {
+            // Absence means not completed, so there is nothing to write
+            return Optional.of(entryRepository.findByHabitIdAndDate(habitId, date)
+                    .map(existing -> removeEntry(habitOpt.get(), existing))
+                    .orElseGet(() -> bufferedEntry(habitId, date, false)));
+        }
+        if (nativeUpsert) {
+            return applyUpsert(habitOpt.get(), date, entryRepository.upsertSet(OwnerContext.current(), habitId, date, completed));
+        }
 
-        Optional<HabitEntry> existingEntry = entryRepository.findByHabitIdAndDate(habitId, date);
+        return Optional.of(writeEntry(habitOpt.get(), date, completed,
+                entryRepository.findByHabitIdAndDate(habitId, date)));
+    }
 
+    // JPA read-modify-write of a single entry
+    private HabitEntry writeEntry(Habit habit, LocalDate date, boolean completed, Optional<HabitEntry> existingEntry) {
         HabitEntry entry;
+        boolean wasCompleted = false;
         if (existingEntry.isPresent()) {
             entry = existingEntry.get();
+            wasCompleted = entry.isCompleted();
             entry.setCompleted(completed);
         } else {
-            entry = new HabitEntry(habitOpt.get(), date, completed);
+            entry = new HabitEntry(habitRepository.getReferenceById(habit.getId()), date, completed);
+        }
+        entry.setChangeSeq(changeSequence.next());
+
+        HabitEntry saved = entryRepository.save(entry);
+        entryChanged(habit, date, wasCompleted, completed);
+        return saved;
+    }
+
+    // Sparse storage: unchecking deletes the row; returns the (unmanaged) unchecked entry
+    private HabitEntry removeEntry(Habit habit, HabitEntry entry) {
+        entryRepository.delete(entry);
+        tombstoneRepository.save(new Tombstone(Tombstone.EntityType.ENTRY, entry.getId(), OwnerContext.current()));
+        entryChanged(habit, entry.getDate(), entry.isCompleted(), false);
+
+        HabitEntry removed = bufferedEntry(habit.getId(), entry.getDate(), false);
+        removed.setId(entry.getId());
+        return removed;
+    }
+
+    // Keeps the month masks and the stats in step with a single entry change
+    private void entryChanged(Habit habit, LocalDate date, boolean wasCompleted, boolean isCompleted) {
+        monthSummaries.onEntryChanged(habit.getId(), date, wasCompleted, isCompleted);
+        statsService.onEntryChanged(habit, date, wasCompleted, isCompleted);
+    }
+
+    // Maps a native upsert result back to an (unmanaged) entry and updates the stats
+    private Optional<HabitEntry> applyUpsert(Habit habit, LocalDate date,
+            Optional<HabitEntryRepository.UpsertResult> result) {
+        if (result.isEmpty()) {
+            // Habit deleted concurrently; the failed statement may have aborted the transaction on Postgres
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return Optional.empty();
+        }
+
+        HabitEntryRepository.UpsertResult row = result.get();
+        entryChanged(habit, date, row.previouslyCompleted(), row.completed());
+
+        HabitEntry entry = new HabitEntry(habitRepository.getReferenceById(habit.getId()), date, row.completed());
+        entry.setId(row.id());
+        entry.setChangeSeq(row.changeSeq());
+        return Optional.of(entry);
+    }
+
+    // Unmanaged entry for responses, e.g. while it is buffered (no id until it is written)
+    private HabitEntry bufferedEntry(Long habitId, LocalDate date, boolean completed) {
+        return new HabitEntry(habitRepository.getReferenceById(habitId), date, completed);
+    }
+
+    // Archived entries first, they are older than the hot ones (apart from days not yet moved)
+    private static List<HabitEntry> withArchived(List<HabitEntry> entries, List<HabitEntry> archived) {
+        if (archived.isEmpty()) {
+            return entries;
+        }
+        List<HabitEntry> result = new ArrayList<>(archived.size() + entries.size());
+        result.addAll(archived);
+        result.addAll(entries);
+        return result;
+    }
+
+    // Replaces persisted entries by their buffered state and adds buffered days not yet in the database
+    private List<HabitEntry> withBuffered(List<HabitEntry> entries, List<ToggleBuffer.State> buffered) {
+        if (buffered.isEmpty()) {
+            return entries;
+        }
+        Map<EntryKey, ToggleBuffer.State> states = new HashMap<>();
+        for (ToggleBuffer.State state : buffered) {
+            states.put(new EntryKey(state.habitId(), state.date()), state);
+        }
+        List<HabitEntry> result = new ArrayList<>(entries.size() + states.size());
+        for (HabitEntry entry : entries) {
+            ToggleBuffer.State state = states.remove(new EntryKey(entry.getHabit().getId(), entry.getDate()));
+            if (state == null || state.completed() == entry.isCompleted()) {
+                result.add(entry);
+            } else {
+                // Copy, the persisted entity must not become dirty
+                HabitEntry copy = bufferedEntry(state.habitId(), state.date(), state.completed());
+                copy.setId(entry.getId());
+                copy.setChangeSeq(entry.getChangeSeq());
+                result.add(copy);
+            }
+        }
+        for (ToggleBuffer.State state : states.values()) {
+            result.add(bufferedEntry(state.habitId(), state.date(), state.completed()));
+        }
+        return result;
+    }
+
+    /**
+     * Apply many set-operations in one transaction.
+     * Habits come from the cache and existing entries are loaded with one query, new entries are
+     * inserted via JDBC batching and dirty entries are flushed as a batch on commit.
+     * 
+     * @return one result per change, in request order
+     */
+    @Transactional
+    public List<BatchResult> applyBatch(List<EntryChange> changes) {
+        if (toggleBuffer.isEnabled()) {
+            // The batch is newer than anything still buffered for its days
+            for (EntryChange change : changes) {
+                if (change.habitId() != null && change.date() != null) {
+                    toggleBuffer.discard(change.habitId(), change.date());
+                }
+            }
+        }
+        return writeBatch(changes);
+    }
+
+    /**
+     * Write buffered toggle states of the current owner (see {@link ToggleBufferFlusher})
+     */
+    @Transactional
+    public void writeBuffered(List<ToggleBuffer.State> states) {
+        writeBatch(states.stream()
+                .map(state -> new EntryChange(state.habitId(), state.date(), state.completed()))
+                .collect(Collectors.toList()));
+    }
+
+    private List<BatchResult> writeBatch(List<EntryChange> changes) {
+        Set<Long> habitIds = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        for (EntryChange change : changes) {
+            if (change.habitId() != null && change.date() != null) {
+                habitIds.add(change.habitId());
+                dates.add(change.date());
+            }
+        }
+
+        Map<Long, Habit> habits = habitService.getHabitsById(habitIds);
+        Map<EntryKey, HabitEntry> entries = new HashMap<>();
+        if (!habits.isEmpty()) {
+            for (HabitEntry entry : entryRepository.findByHabitIdInAndDateIn(habits.keySet(), dates)) {
+                entries.put(new EntryKey(entry.getHabit().getId(), entry.getDate()), entry);
+            }
+        }
+
+        // All rows written by one batch share a single change sequence number
+        long changeSeq = changeSequence.next();
+        dataVersion.markChanged();
+        List<BatchResult> results = new ArrayList<>(changes.size());
+        List<HabitEntry> newEntries = new ArrayList<>();
+        // Sparse storage: entries unchecked by the batch, deleted after the loop
+        Map<EntryKey, HabitEntry> removed = new HashMap<>();
+        // State before the batch, so repeated changes to one key update the stats once
+        Map<EntryKey, Boolean> previousState = new HashMap<>();
+        for (EntryChange change : changes) {
+            if (change.habitId() == null || change.date() == null || !isEditable(change.date())) {
+                results.add(new BatchResult(BatchStatus.INVALID, null));
+                continue;
+            }
+            Habit habit = habits.get(change.habitId());
+            if (habit == null) {
+                results.add(new BatchResult(BatchStatus.HABIT_NOT_FOUND, null));
+                continue;
+            }
+
+            EntryKey key = new EntryKey(change.habitId(), change.date());
+            HabitEntry entry = entries.get(key);
+            previousState.putIfAbsent(key, entry != null && entry.isCompleted());
+            if (change.completed()) {
+                removed.remove(key);
+            }
+            if (entry == null && sparse && !change.completed()) {
+                results.add(new BatchResult(BatchStatus.UNCHANGED, bufferedEntry(habit.getId(), change.date(), false)));
+            } else if (entry == null) {
+                entry = new HabitEntry(habitRepository.getReferenceById(habit.getId()), change.date(),
+                        change.completed());
+                entry.setChangeSeq(changeSeq);
+                entries.put(key, entry);
+                newEntries.add(entry);
+                results.add(new BatchResult(BatchStatus.CREATED, entry));
+            } else if (entry.isCompleted() == change.completed()) {
+                results.add(new BatchResult(BatchStatus.UNCHANGED, entry));
+            } else {
+                entry.setCompleted(change.completed());
+                entry.setChangeSeq(changeSeq);
+                if (sparse && !change.completed()) {
+                    removed.put(key, entry);
+                }
+                results.add(new BatchResult(BatchStatus.UPDATED, entry));
+            }
+        }
+
+        entryRepository.saveAll(newEntries);
+        for (BatchResult result : results) {
+            if (result.status() == BatchStatus.CREATED || result.status() == BatchStatus.UPDATED) {
+                changeEvents.publish(ChangeEvent.entry(result.entry()));
+            }
+        }
+        if (!removed.isEmpty()) {
+            // Tombstones let sync clients drop the unchecked rows
+            entryRepository.deleteAll(removed.values());
+            tombstoneRepository.saveAll(removed.values().stream()
+                    .map(entry -> new Tombstone(Tombstone.EntityType.ENTRY, entry.getId(), OwnerContext.current()))
+                    .collect(Collectors.toList()));
+        }
+
+        // Incremental stats updates assume one change at a time, so habits with several
+        // changed days are recomputed once instead
+        Map<Long, List<EntryKey>> changedKeys = previousState.keySet().stream()
+                .filter(key -> previousState.get(key) != isCompleted(entries.get(key)))
+                .collect(Collectors.groupingBy(EntryKey::habitId));
+        // Month masks first, a recomputation may read them
+        changedKeys.values().forEach(keys -> keys.forEach(key -> monthSummaries.onEntryChanged(
+                key.habitId(), key.date(), previousState.get(key), isCompleted(entries.get(key)))));
+        changedKeys.forEach((habitId, keys) -> {
+            if (keys.size() == 1) {
+                EntryKey key = keys.get(0);
+                statsService.onEntryChanged(habits.get(habitId), key.date(), previousState.get(key),
+                        isCompleted(entries.get(key)));
+            } else {
+                statsService.recalculate(habits.get(habitId));
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Write a chunk of imported entries in one transaction (see {@link EntryImportService}).
+     * Existing entries are read with one query and the changed rows are written with one batched
+     * native upsert. Unlike {@link #applyBatch}, the edit window is left to the caller and no
+     * events, month masks or stats are updated; call {@link #recomputeImported} once at the end.
+     *
+     * @param habits the owner's habits by id, resolved once per import
+     * @return one status per change, in request order
+     */
+    @Transactional
+    public List<BatchStatus> importBatch(List<EntryChange> changes, Map<Long, Habit> habits) {
+        Set<Long> habitIds = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        for (EntryChange change : changes) {
+            if (habits.containsKey(change.habitId())) {
+                habitIds.add(change.habitId());
+            }
+            dates.add(change.date());
+            if (toggleBuffer.isEnabled()) {
+                toggleBuffer.discard(change.habitId(), change.date());
+            }
+        }
+        Map<EntryKey, HabitEntry> entries = new HashMap<>();
+        if (!habitIds.isEmpty()) {
+            for (HabitEntry entry : entryRepository.findByHabitIdInAndDateIn(habitIds, dates)) {
+                entries.put(new EntryKey(entry.getHabit().getId(), entry.getDate()), entry);
+            }
+        }
+
+        List<BatchStatus> statuses = new ArrayList<>(changes.size());
+        // Current state per key (null = no row), the final state of each key is written once
+        Map<EntryKey, Boolean> state = new HashMap<>();
+        entries.forEach((key, entry) -> state.put(key, entry.isCompleted()));
+        Map<EntryKey, Boolean> written = new LinkedHashMap<>();
+        for (EntryChange change : changes) {
+            if (!habits.containsKey(change.habitId())) {
+                statuses.add(BatchStatus.HABIT_NOT_FOUND);
+                continue;
+            }
+            EntryKey key = new EntryKey(change.habitId(), change.date());
+            Boolean current = state.get(key);
+            // Sparse storage: unchecking deletes the row
+            Boolean next = sparse && !change.completed() ? null : change.completed();
+            if (current == null && next == null || current != null && current.equals(next)) {
+                statuses.add(BatchStatus.UNCHANGED);
+                continue;
+            }
+            statuses.add(current == null ? BatchStatus.CREATED : BatchStatus.UPDATED);
+            state.put(key, next);
+            written.put(key, next);
+        }
+        if (written.isEmpty()) {
+            return statuses;
+        }
+
+        long changeSeq = changeSequence.next();
+        dataVersion.markChanged();
+        List<HabitEntryRepository.UpsertRow> upserts = new ArrayList<>();
+        List<HabitEntry> removed = new ArrayList<>();
+        written.forEach((key, completed) -> {
+            if (completed != null) {
+                upserts.add(new HabitEntryRepository.UpsertRow(key.habitId(), key.date(), completed));
+            } else if (entries.containsKey(key)) {
+                removed.add(entries.get(key));
+            }
+        });
+        if (entryRepository.supportsUpsert()) {
+            entryRepository.upsertAll(OwnerContext.current(), upserts, changeSeq);
+        } else {
+            List<HabitEntry> saved = new ArrayList<>();
+            for (HabitEntryRepository.UpsertRow row : upserts) {
+                HabitEntry entry = entries.get(new EntryKey(row.habitId(), row.date()));
+                if (entry == null) {
+                    entry = new HabitEntry(habitRepository.getReferenceById(row.habitId()), row.date(), row.completed());
+                }
+                entry.setCompleted(row.completed());
+                entry.setChangeSeq(changeSeq);
+                saved.add(entry);
+            }
+            entryRepository.saveAll(saved);
         }
+        if (!removed.isEmpty()) {
+            // Tombstones let sync clients drop the unchecked rows
+            entryRepository.deleteAllInBatch(removed);
+            tombstoneRepository.saveAll(removed.stream()
+                    .map(entry -> new Tombstone(Tombstone.EntityType.ENTRY, entry.getId(), OwnerContext.current()))
+                    .collect(Collectors.toList()));
+        }
+        return statuses;
+    }
 
-        return Optional.of(entryRepository.save(entry));
+    /**
+     * Bring the month masks and stats of habits changed by {@link #importBatch} up to date and
+     * tell subscribed clients to refetch them, once per habit instead of once per row
+     */
+    @Transactional
+    public void recomputeImported(Collection<Long> habitIds) {
+        for (Long habitId : habitIds) {
+            Optional<Habit> habit = habitService.getHabitById(habitId);
+            if (habit.isEmpty()) {
+                continue;
+            }
+            // Month masks first, the recomputation reads them
+            monthSummaries.rebuild(habitId);
+            statsService.recalculate(habit.get());
+            changeEvents.publish(ChangeEvent.habit(habit.get()));
+        }
+    }
+
+    /**
+     * Delete up to limit entries that are not completed (see {@link EntryCompactionJob})
+     *
+     * @return the number of deleted entries
+     */
+    @Transactional
+    public int purgeUncompleted(int limit) {
+        List<HabitEntry> entries = entryRepository.findByCompletedFalseOrderById(PageRequest.ofSize(limit));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        entries.forEach(entry -> dataVersion.markChanged(entry.getOwnerId()));
+        entryRepository.deleteAllInBatch(entries);
+        tombstoneRepository.saveAll(entries.stream()
+                .map(entry -> new Tombstone(Tombstone.EntityType.ENTRY, entry.getId(), entry.getOwnerId()))
+                .collect(Collectors.toList()));
+        return entries.size();
+    }
+
+    // A missing entry counts as not completed
+    private static boolean isCompleted(HabitEntry entry) {
+        return entry != null && entry.isCompleted();
     }
 
     /**
@@ -103,18 +622,69 @@ public class HabitEntryService {
      * 
      * @return true if deleted, false if not found
      */
+    @Transactional
     public boolean deleteEntry(Long id) {
-        if (!entryRepository.existsById(id)) {
+        Optional<HabitEntry> entry = entryRepository.findById(id);
+        if (entry.isEmpty()) {
             return false;
         }
-        entryRepository.deleteById(id);
+        requireEditable(entry.get().getDate());
+        dataVersion.markChanged();
+        toggleBuffer.discard(entry.get().getHabit().getId(), entry.get().getDate());
+        entryRepository.delete(entry.get());
+        tombstoneRepository.save(new Tombstone(Tombstone.EntityType.ENTRY, id, OwnerContext.current()));
+        changeEvents.publish(ChangeEvent.entryDeleted(entry.get()));
+        Long habitId = entry.get().getHabit().getId();
+        habitService.getHabitById(habitId).ifPresent(habit ->
+                entryChanged(habit, entry.get().getDate(), entry.get().isCompleted(), false));
         return true;
     }
 
+    /**
+     * Earliest date whose entries can still be changed, or null if every date is editable
+     */
+    public LocalDate getEarliestEditableDate() {
+        return editWindowDays > 0 ? LocalDate.now().minusDays(editWindowDays) : null;
+    }
+
+    /**
+     * Check if entries for the given date can still be changed
+     */
+    public boolean isEditable(LocalDate date) {
+        LocalDate earliest = getEarliestEditableDate();
+        return earliest == null || !date.isBefore(earliest);
+    }
+
+    private void requireEditable(LocalDate date) {
+        if (!isEditable(date)) {
+            throw new IllegalArgumentException("Date is outside the edit window of " + editWindowDays + " days");
+        }
+    }
+
     /**
      * Check if a habit exists
      */
     public boolean habitExists(Long habitId) {
-        return habitRepository.existsById(habitId);
+        return habitService.existsById(habitId);
+    }
+
+    /**
+     * A single set-operation inside a batch
+     */
+    public record EntryChange(Long habitId, LocalDate date, boolean completed) {
+    }
+
+    public enum BatchStatus {
+        CREATED,
+        UPDATED,
+        UNCHANGED,
+        HABIT_NOT_FOUND,
+        INVALID
+    }
+
+    public record BatchResult(BatchStatus status, HabitEntry entry) {
+    }
+
+    private record EntryKey(Long habitId, LocalDate date) {
     }
 }
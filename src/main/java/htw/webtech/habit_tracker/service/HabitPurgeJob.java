@@ -0,0 +1,81 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.config.ShardRoutingDataSource;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Removes habits marked deleted by {@link HabitService#deleteHabit} together with their
+ * entries, batch-size rows per transaction so no long locks are held. Works across all
+ * owners, and with sharding on every shard in turn.
+ */
+@Component
+public class HabitPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(HabitPurgeJob.class);
+
+    private final HabitService habitService;
+    private final HabitRepository habitRepository;
+    private final ObjectProvider<ShardRoutingDataSource> shards;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public HabitPurgeJob(HabitService habitService, HabitRepository habitRepository,
+            ObjectProvider<ShardRoutingDataSource> shards,
+            @Value("${habit-tracker.habits.purge.batch-size:1000}") int batchSize,
+            @Value("${habit-tracker.habits.purge.max-batches-per-run:100}") int maxBatches) {
+        this.habitService = habitService;
+        this.habitRepository = habitRepository;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${habit-tracker.habits.purge.interval-ms:10000}",
+            initialDelayString = "${habit-tracker.habits.purge.initial-delay-ms:10000}")
+    public void run() {
+        purge();
+    }
+
+    /**
+     * Delete entries of deleted habits in batches, at most max-batches-per-run per shard
+     *
+     * @return the number of deleted entries
+     */
+    public int purge() {
+        ShardRoutingDataSource router = shards.getIfAvailable();
+        if (router == null) {
+            return purgeShard();
+        }
+        AtomicInteger total = new AtomicInteger();
+        for (String shard : router.shardNames()) {
+            ShardRoutingDataSource.runOnShard(shard, () -> total.addAndGet(purgeShard()));
+        }
+        return total.get();
+    }
+
+    private int purgeShard() {
+        int total = 0;
+        int batches = 0;
+        for (HabitRepository.DeletedHabit habit : habitRepository.findDeleted()) {
+            int deleted;
+            do {
+                if (batches++ >= maxBatches) {
+                    return total;
+                }
+                deleted = OwnerContext.callAs(habit.getOwnerId(),
+                        () -> habitService.purgeDeleted(habit.getId(), batchSize));
+                total += deleted;
+            } while (deleted > 0);
+            log.info("Purged deleted habit {}", habit.getId());
+        }
+        return total;
+    }
+}
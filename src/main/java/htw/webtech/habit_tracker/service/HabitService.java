@@ -1,43 +1,172 @@
 package htw.webtech.habit_tracker.service;
 
+import htw.webtech.habit_tracker.config.ReadWriteRoutingDataSource;
 import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.Tombstone;
+import htw.webtech.habit_tracker.repository.HabitEntryArchiveRepository;
 import htw.webtech.habit_tracker.repository.HabitEntryRepository;
 import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.repository.TombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class HabitService {
 
+    // Habit definitions rarely change; the caches are evicted precisely by the mutators below,
+    // once their transaction has committed. The caches hold unmanaged copies and every hit
+    // returns new copies, so callers can neither change a cached habit nor see a lazy proxy.
+    // Cached lookups read from the primary: inside a read-only transaction routed to the replica
+    // they run in a new read-write one, otherwise a lagging replica would put a stale habit into
+    // the cache for every client. That holds a replica and a primary connection at once, so it
+    // is only done with replica routing; everywhere else the lookup joins the caller's
+    // transaction and connection, as two connections from one pool can starve each other.
+    // A read-write caller is on the primary already.
+    public static final String HABITS_CACHE = "habits";
+    public static final String HABIT_CACHE = "habit";
+    public static final String HABIT_EXISTS_CACHE = "habitExists";
+
     private final HabitRepository habitRepository;
     private final HabitEntryRepository entryRepository;
+    private final HabitEntryArchiveRepository archiveRepository;
+    private final HabitStatsService statsService;
+    private final MonthSummaryService monthSummaries;
+    private final TombstoneRepository tombstoneRepository;
+    private final ChangeSequence changeSequence;
+    private final DataVersion dataVersion;
+    private final ChangeEventBroadcaster changeEvents;
+    private final TransactionTemplate lookups;
+    private final TransactionTemplate primaryLookups;
+    private final Cache habitsCache;
+    private final Cache habitCache;
+    private final Cache habitExistsCache;
+    // Bumped by every eviction; a lookup drops what it cached if an eviction ran during its load
+    private final AtomicLong evictions = new AtomicLong();
+    private final int syncDeleteLimit;
+    private final boolean replicaRouting;
 
-    public HabitService(HabitRepository habitRepository, HabitEntryRepository entryRepository) {
+    public HabitService(HabitRepository habitRepository, HabitEntryRepository entryRepository,
+            HabitEntryArchiveRepository archiveRepository, HabitStatsService statsService,
+            MonthSummaryService monthSummaries, TombstoneRepository tombstoneRepository,
+            ChangeSequence changeSequence, DataVersion dataVersion, ChangeEventBroadcaster changeEvents,
+            PlatformTransactionManager transactionManager, CacheManager cacheManager,
+            @Value("${habit-tracker.habits.sync-delete-limit:1000}") int syncDeleteLimit,
+            @Value("${habit-tracker.datasource.replica.url:}") String replicaUrl) {
         this.habitRepository = habitRepository;
         this.entryRepository = entryRepository;
+        this.archiveRepository = archiveRepository;
+        this.statsService = statsService;
+        this.monthSummaries = monthSummaries;
+        this.tombstoneRepository = tombstoneRepository;
+        this.changeSequence = changeSequence;
+        this.dataVersion = dataVersion;
+        this.changeEvents = changeEvents;
+        this.lookups = new TransactionTemplate(transactionManager);
+        this.primaryLookups = new TransactionTemplate(transactionManager);
+        this.primaryLookups.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.habitsCache = Objects.requireNonNull(cacheManager.getCache(HABITS_CACHE));
+        this.habitCache = Objects.requireNonNull(cacheManager.getCache(HABIT_CACHE));
+        this.habitExistsCache = Objects.requireNonNull(cacheManager.getCache(HABIT_EXISTS_CACHE));
+        this.syncDeleteLimit = syncDeleteLimit;
+        this.replicaRouting = !replicaUrl.isBlank();
     }
 
     /**
      * Get all habits
      */
     public List<Habit> getAllHabits() {
-        return habitRepository.findAll();
+        String key = ownerKey();
+        Habit[] cached = habitsCache.get(key, Habit[].class);
+        if (cached != null) {
+            return Arrays.stream(cached).map(Habit::copy).toList();
+        }
+        long seen = evictions.get();
+        List<Habit> habits = lookup(status -> habitRepository.findAll());
+        store(habitsCache, key, seen, habits.stream().map(Habit::copy).toArray(Habit[]::new));
+        return habits;
+    }
+
+    /**
+     * Get up to limit habits with an id greater than after (null = from the start)
+     */
+    @Transactional(readOnly = true)
+    public Slice<Habit> getHabitsAfter(Long after, int limit) {
+        return habitRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, PageRequest.ofSize(limit));
     }
 
     /**
      * Get a single habit by ID
      */
     public Optional<Habit> getHabitById(Long id) {
-        return habitRepository.findById(id);
+        String key = ownerKey(id);
+        Cache.ValueWrapper cached = habitCache.get(key);
+        if (cached != null) {
+            return Optional.ofNullable((Habit) cached.get()).map(Habit::copy);
+        }
+        long seen = evictions.get();
+        Optional<Habit> habit = lookup(status -> habitRepository.findById(id));
+        // Unknown ids are cached as null until a create evicts them
+        store(habitCache, key, seen, habit.map(Habit::copy).orElse(null));
+        return habit;
+    }
+
+    /**
+     * Get the habits with the given IDs, keyed by id; unknown ids are left out. Cache misses
+     * are loaded with a single query.
+     */
+    public Map<Long, Habit> getHabitsById(Collection<Long> ids) {
+        Map<Long, Habit> habits = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Cache.ValueWrapper cached = habitCache.get(ownerKey(id));
+            if (cached == null) {
+                missing.add(id);
+            } else if (cached.get() != null) {
+                habits.put(id, ((Habit) cached.get()).copy());
+            }
+        }
+        if (missing.isEmpty()) {
+            return habits;
+        }
+        long seen = evictions.get();
+        List<Habit> loaded = lookup(status -> habitRepository.findAllById(missing));
+        for (Habit habit : loaded) {
+            habits.put(habit.getId(), habit);
+        }
+        // Unknown ids are cached as null until a create evicts them, as in getHabitById
+        for (Long id : missing) {
+            Habit habit = habits.get(id);
+            store(habitCache, ownerKey(id), seen, habit != null ? habit.copy() : null);
+        }
+        return habits;
     }
 
     /**
      * Create a new habit with default values
      */
+    @Transactional
     public Habit createHabit(Habit habit) {
         // Ensure id is null for new habits
         habit.setId(null);
@@ -49,16 +178,26 @@ public class HabitService {
         if (habit.getType() == null) {
             habit.setType(Habit.HabitType.DAILY);
         }
+        habit.setChangeSeq(changeSequence.next());
+        dataVersion.markChanged();
 
-        return habitRepository.save(habit);
+        Habit saved = habitRepository.save(habit);
+        evictAfterCommit(saved.getId());
+        changeEvents.publish(ChangeEvent.habit(saved));
+        return saved;
     }
 
     /**
      * Update an existing habit
      */
+    @Transactional
     public Optional<Habit> updateHabit(Long id, Habit habitDetails) {
+        evictAfterCommit(id);
         return habitRepository.findById(id)
                 .map(existingHabit -> {
+                    Habit.HabitType previousType = existingHabit.getType();
+                    Integer previousTarget = existingHabit.getTargetPerWeek();
+
                     if (habitDetails.getName() != null) {
                         existingHabit.setName(habitDetails.getName());
                     }
@@ -77,32 +216,126 @@ public class HabitService {
                     if (habitDetails.getTargetPerWeek() != null) {
                         existingHabit.setTargetPerWeek(habitDetails.getTargetPerWeek());
                     }
-                    return habitRepository.save(existingHabit);
+                    existingHabit.setChangeSeq(changeSequence.next());
+                    dataVersion.markChanged();
+                    Habit saved = habitRepository.save(existingHabit);
+
+                    // Streaks are counted per day or per week, so a new cadence invalidates them
+                    if (previousType != saved.getType()
+                            || !Objects.equals(previousTarget, saved.getTargetPerWeek())) {
+                        statsService.recalculate(saved);
+                    }
+                    changeEvents.publish(ChangeEvent.habit(saved));
+                    return saved;
                 });
     }
 
     /**
-     * Delete a habit and all its entries
+     * Delete a habit and all its entries. Habits with more than sync-delete-limit entries are
+     * only marked deleted and vanish right away; {@link HabitPurgeJob} removes their entries
+     * in the background, so the request does a bounded amount of work.
      */
     @Transactional
     public boolean deleteHabit(Long id) {
+        evictAfterCommit(id);
         if (!habitRepository.existsById(id)) {
             return false;
         }
 
-        // Delete all entries for this habit first
-        entryRepository.deleteByHabitId(id);
+        dataVersion.markChanged();
 
-        // Then delete the habit
-        habitRepository.deleteById(id);
+        if (entryRepository.findIdsByHabitId(id, PageRequest.ofSize(syncDeleteLimit + 1)).size() > syncDeleteLimit) {
+            habitRepository.markDeleted(id);
+        } else {
+            // Delete all entries for this habit first, one statement each
+            entryRepository.deleteByHabitId(id);
+            archiveRepository.deleteByHabitId(id);
+            habitRepository.deleteById(id);
+        }
+        monthSummaries.deleteSummaries(id);
+        statsService.deleteStats(id);
+
+        // Sync clients drop the habit's entries together with the habit
+        tombstoneRepository.save(new Tombstone(Tombstone.EntityType.HABIT, id, OwnerContext.current()));
+        changeEvents.publish(ChangeEvent.habitDeleted(id));
         return true;
     }
 
+    /**
+     * Delete up to limit entries of a habit marked deleted, and the habit itself once it has
+     * none left (see {@link HabitPurgeJob})
+     *
+     * @return the number of deleted entries, 0 when the habit is gone
+     */
+    @Transactional
+    public int purgeDeleted(Long id, int limit) {
+        List<Long> entryIds = entryRepository.findIdsByHabitId(id, PageRequest.ofSize(limit));
+        if (!entryIds.isEmpty()) {
+            entryRepository.deleteAllByIdInBatch(entryIds);
+            return entryIds.size();
+        }
+        List<Long> archivedIds = archiveRepository.findIdsByHabitId(id, PageRequest.ofSize(limit));
+        if (!archivedIds.isEmpty()) {
+            archiveRepository.deleteAllByIdInBatch(archivedIds);
+            return archivedIds.size();
+        }
+        habitRepository.deleteMarked(id);
+        return 0;
+    }
+
     /**
      * Check if a habit exists
      */
     public boolean existsById(Long id) {
-        return habitRepository.existsById(id);
+        String key = ownerKey(id);
+        Boolean cached = habitExistsCache.get(key, Boolean.class);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = evictions.get();
+        boolean exists = Boolean.TRUE.equals(lookup(status -> habitRepository.existsById(id)));
+        store(habitExistsCache, key, seen, exists);
+        return exists;
+    }
+
+    private <T> T lookup(TransactionCallback<T> callback) {
+        return replicaRouting && ReadWriteRoutingDataSource.currentRoute() == ReadWriteRoutingDataSource.Route.REPLICA
+                ? primaryLookups.execute(callback)
+                : lookups.execute(callback);
+    }
+
+    // Keeps a loaded value unless an eviction ran since the load began: that eviction may have
+    // come before this put, so the value could predate the write it was meant to remove
+    private void store(Cache cache, String key, long seenEvictions, Object value) {
+        cache.put(key, value);
+        if (evictions.get() != seenEvictions) {
+            cache.evict(key);
+        }
+    }
+
+    // Evicted after commit, so no lookup can load the old state once the eviction ran
+    private void evictAfterCommit(Long id) {
+        String ownerKey = ownerKey();
+        String idKey = ownerKey(id);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictions.incrementAndGet();
+                habitsCache.evict(ownerKey);
+                habitCache.evict(idKey);
+                habitExistsCache.evict(idKey);
+            }
+        });
+    }
+
+    // Cache keys include the owner: habit ids are only unique per shard, and a cached
+    // lookup must never hand one owner's habit to another
+    private static String ownerKey() {
+        return Long.toString(OwnerContext.current());
+    }
+
+    private static String ownerKey(Long id) {
+        return OwnerContext.current() + ":" + id;
     }
 
     /**
@@ -0,0 +1,290 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitStats;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.repository.HabitStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Maintains current streak, longest streak and total completions per habit.
+ * <p>
+ * Changes in the latest period are applied in O(1). Changes to an older period only
+ * rescan the neighbouring runs (bounded by the longest streak); a full recompute is
+ * needed only when the run holding the longest streak shrinks.
+ */
+@Service
+public class HabitStatsService {
+
+    private final HabitStatsRepository statsRepository;
+    private final HabitEntryRepository entryRepository;
+    private final HabitRepository habitRepository;
+    private final EntryArchiveService archiveService;
+    private final MonthSummaryService monthSummaries;
+
+    public HabitStatsService(HabitStatsRepository statsRepository, HabitEntryRepository entryRepository,
+            HabitRepository habitRepository, EntryArchiveService archiveService,
+            MonthSummaryService monthSummaries) {
+        this.statsRepository = statsRepository;
+        this.entryRepository = entryRepository;
+        this.habitRepository = habitRepository;
+        this.archiveService = archiveService;
+        this.monthSummaries = monthSummaries;
+    }
+
+    /**
+     * Get the stats of a habit, computing them on first access
+     *
+     * @return the stats, or empty if habit not found
+     */
+    @Transactional
+    public Optional<Summary> getSummary(Long habitId, LocalDate today) {
+        return habitRepository.findById(habitId).map(habit -> {
+            HabitStats stats = statsRepository.findById(habitId).orElseGet(() -> {
+                LockedStats locked = lock(habitId);
+                return locked.created() ? recompute(habit, locked.stats()) : locked.stats();
+            });
+            return toSummary(habit, stats, today);
+        });
+    }
+
+    /**
+     * Apply a completion change of a single entry.
+     * Must run in the same transaction as the entry write.
+     */
+    @Transactional
+    public void onEntryChanged(Habit habit, LocalDate date, boolean wasCompleted, boolean isCompleted) {
+        if (wasCompleted == isCompleted) {
+            return;
+        }
+
+        LockedStats locked = lock(habit.getId());
+        HabitStats stats = locked.stats();
+        if (locked.created()) {
+            // Computed from the entries, which already include this change
+            recompute(habit, stats);
+            return;
+        }
+
+        stats.setTotalCompletions(stats.getTotalCompletions() + (isCompleted ? 1 : -1));
+
+        Cadence cadence = Cadence.of(habit);
+        LocalDate period = cadence.start(date);
+        boolean periodMet;
+        boolean periodWasMet;
+        if (cadence.weekly()) {
+            // The week may reach back past the archive horizon
+            long count = archiveService.getCompletedDates(habit.getId(), period, cadence.end(period)).size();
+            periodMet = count >= cadence.target();
+            periodWasMet = count + (isCompleted ? -1 : 1) >= cadence.target();
+        } else {
+            periodMet = isCompleted;
+            periodWasMet = wasCompleted;
+        }
+        if (periodMet == periodWasMet) {
+            return;
+        }
+
+        LocalDate streakEnd = stats.getStreakEnd();
+        if (streakEnd == null || period.isAfter(streakEnd)) {
+            if (!periodMet) {
+                // Nothing after streakEnd can have been met, the counters are out of sync
+                recompute(habit, stats);
+                return;
+            }
+            // Fast path: today / this week extends or starts the latest run
+            boolean extendsRun = streakEnd != null && period.equals(cadence.plus(streakEnd, 1));
+            stats.setCurrentStreak(extendsRun ? stats.getCurrentStreak() + 1 : 1);
+            stats.setStreakEnd(period);
+            stats.setLongestStreak(Math.max(stats.getLongestStreak(), stats.getCurrentStreak()));
+            return;
+        }
+
+        rescanAround(habit, stats, cadence, period, periodMet);
+    }
+
+    /**
+     * Recompute the stats of a habit from scratch (e.g. after its type or target changed)
+     */
+    @Transactional
+    public void recalculate(Habit habit) {
+        recompute(habit, lock(habit.getId()).stats());
+    }
+
+    /**
+     * Remove the stats of a deleted habit
+     */
+    @Transactional
+    public void deleteStats(Long habitId) {
+        statsRepository.deleteById(habitId);
+    }
+
+    // Locks the stats row of a habit, inserting empty counters first if there are none yet.
+    // Concurrent first writers insert the row once; the others wait for it and update it
+    private LockedStats lock(Long habitId) {
+        Optional<HabitStats> existing = statsRepository.findForUpdate(habitId);
+        if (existing.isPresent()) {
+            return new LockedStats(existing.get(), false);
+        }
+        boolean created = statsRepository.insertIfAbsent(habitId);
+        return new LockedStats(statsRepository.findForUpdate(habitId).orElseThrow(), created);
+    }
+
+    /**
+     * Update the runs touching a past period by scanning at most longestStreak + 1
+     * periods on either side of it.
+     */
+    private void rescanAround(Habit habit, HabitStats stats, Cadence cadence, LocalDate period, boolean periodMet) {
+        LocalDate streakEnd = stats.getStreakEnd();
+        int reach = stats.getLongestStreak() + 1;
+        LocalDate from = cadence.plus(period, -reach);
+        LocalDate to = cadence.plus(period, reach);
+        if (to.isAfter(streakEnd)) {
+            to = streakEnd;
+        }
+
+        // Long runs reach back past the archive horizon
+        List<LocalDate> dates = archiveService.getCompletedDates(habit.getId(), from, cadence.end(to));
+        Map<LocalDate, Boolean> met = metPeriods(cadence, dates);
+
+        int left = 0;
+        for (LocalDate p = cadence.plus(period, -1); !p.isBefore(from) && met.getOrDefault(p, false);
+                p = cadence.plus(p, -1)) {
+            left++;
+        }
+        int right = 0;
+        for (LocalDate p = cadence.plus(period, 1); !p.isAfter(to) && met.getOrDefault(p, false);
+                p = cadence.plus(p, 1)) {
+            right++;
+        }
+        boolean touchesStreakEnd = cadence.plus(period, right).equals(streakEnd);
+
+        if (left >= reach) {
+            // Left run longer than any known run, the counters are out of sync
+            recompute(habit, stats);
+            return;
+        }
+
+        int run = left + 1 + right;
+        if (periodMet) {
+            // Two runs (or one run and a single period) merged
+            stats.setLongestStreak(Math.max(stats.getLongestStreak(), run));
+            if (touchesStreakEnd) {
+                stats.setCurrentStreak(run);
+            }
+            return;
+        }
+
+        // A run was split in two; if it was the longest one, another run may now be longest
+        if (run >= stats.getLongestStreak()) {
+            recompute(habit, stats);
+            return;
+        }
+        if (touchesStreakEnd) {
+            if (right > 0) {
+                stats.setCurrentStreak(right);
+            } else if (left > 0) {
+                stats.setCurrentStreak(left);
+                stats.setStreakEnd(cadence.plus(period, -1));
+            } else {
+                // The latest run disappeared, the previous one lies outside the scanned window
+                recompute(habit, stats);
+            }
+        }
+    }
+
+    private HabitStats recompute(Habit habit, HabitStats stats) {
+        Cadence cadence = Cadence.of(habit);
+        // One row per month instead of one per completed day when the rollup is in use
+        List<LocalDate> dates = monthSummaries.isEnabled()
+                ? monthSummaries.getCompletedDates(habit.getId())
+                : archiveService.getCompletedDates(habit.getId());
+
+        int current = 0;
+        int longest = 0;
+        LocalDate previous = null;
+        for (Map.Entry<LocalDate, Boolean> period : metPeriods(cadence, dates).entrySet()) {
+            if (!period.getValue()) {
+                continue;
+            }
+            boolean extendsRun = previous != null && period.getKey().equals(cadence.plus(previous, 1));
+            current = extendsRun ? current + 1 : 1;
+            longest = Math.max(longest, current);
+            previous = period.getKey();
+        }
+
+        stats.setTotalCompletions(dates.size());
+        stats.setCurrentStreak(current);
+        stats.setLongestStreak(longest);
+        stats.setStreakEnd(previous);
+        return stats;
+    }
+
+    // Periods (by start date, ascending) that contain completions, mapped to whether they met the target
+    private Map<LocalDate, Boolean> metPeriods(Cadence cadence, List<LocalDate> completedDates) {
+        Map<LocalDate, Integer> counts = new TreeMap<>();
+        for (LocalDate date : completedDates) {
+            counts.merge(cadence.start(date), 1, Integer::sum);
+        }
+        Map<LocalDate, Boolean> met = new TreeMap<>();
+        counts.forEach((period, count) -> met.put(period, count >= cadence.target()));
+        return met;
+    }
+
+    private Summary toSummary(Habit habit, HabitStats stats, LocalDate today) {
+        Cadence cadence = Cadence.of(habit);
+        // The running period does not break a streak until it is over
+        LocalDate previousPeriod = cadence.plus(cadence.start(today), -1);
+        boolean alive = stats.getStreakEnd() != null && !stats.getStreakEnd().isBefore(previousPeriod);
+        return new Summary(
+                habit.getId(),
+                habit.getType(),
+                alive ? stats.getCurrentStreak() : 0,
+                stats.getLongestStreak(),
+                stats.getTotalCompletions(),
+                stats.getStreakEnd());
+    }
+
+    /**
+     * Stats as seen on a given day
+     */
+    public record Summary(Long habitId, Habit.HabitType type, int currentStreak, int longestStreak,
+            int totalCompletions, LocalDate lastMetPeriod) {
+    }
+
+    private record LockedStats(HabitStats stats, boolean created) {
+    }
+
+    // Day-based periods for DAILY habits, ISO weeks with a completion target for WEEKLY habits
+    private record Cadence(boolean weekly, int target) {
+
+        static Cadence of(Habit habit) {
+            if (habit.getType() == Habit.HabitType.WEEKLY) {
+                Integer target = habit.getTargetPerWeek();
+                return new Cadence(true, target != null && target > 0 ? target : 1);
+            }
+            return new Cadence(false, 1);
+        }
+
+        LocalDate start(LocalDate date) {
+            return weekly ? date.with(DayOfWeek.MONDAY) : date;
+        }
+
+        LocalDate end(LocalDate periodStart) {
+            return weekly ? periodStart.plusDays(6) : periodStart;
+        }
+
+        LocalDate plus(LocalDate periodStart, int periods) {
+            return weekly ? periodStart.plusWeeks(periods) : periodStart.plusDays(periods);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.config.ShardRoutingDataSource;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backfills the monthly rollup on startup: recomputes the masks of every habit of every
+ * owner (on every shard) from its entries, one transaction per owner. Run once after
+ * upgrading, e.g. with --habit-tracker.entries.rollup.rebuild-on-startup=true, before
+ * setting min-range-days.
+ */
+@Component
+@ConditionalOnProperty(name = "habit-tracker.entries.rollup.rebuild-on-startup", havingValue = "true")
+public class MonthSummaryRebuild implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthSummaryRebuild.class);
+
+    private final MonthSummaryService monthSummaries;
+    private final HabitRepository habitRepository;
+    private final ObjectProvider<ShardRoutingDataSource> shards;
+
+    public MonthSummaryRebuild(MonthSummaryService monthSummaries, HabitRepository habitRepository,
+            ObjectProvider<ShardRoutingDataSource> shards) {
+        this.monthSummaries = monthSummaries;
+        this.habitRepository = habitRepository;
+        this.shards = shards;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the masks of all owners
+     *
+     * @return the number of habits rebuilt
+     */
+    public int rebuild() {
+        ShardRoutingDataSource router = shards.getIfAvailable();
+        if (router == null) {
+            return rebuildShard();
+        }
+        AtomicInteger total = new AtomicInteger();
+        for (String shard : router.shardNames()) {
+            ShardRoutingDataSource.runOnShard(shard, () -> total.addAndGet(rebuildShard()));
+        }
+        return total.get();
+    }
+
+    private int rebuildShard() {
+        int total = 0;
+        for (Long ownerId : habitRepository.findOwnerIds()) {
+            total += OwnerContext.callAs(ownerId, monthSummaries::rebuild);
+        }
+        log.info("Rebuilt the month summaries of {} habits", total);
+        return total;
+    }
+}
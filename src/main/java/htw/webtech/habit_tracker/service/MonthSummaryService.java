@@ -0,0 +1,149 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitMonthSummary;
+import htw.webtech.habit_tracker.repository.HabitMonthSummaryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the monthly completion masks ({@link HabitMonthSummary}) and answers long-range
+ * reads from them: ranges of at least min-range-days read one row per habit and month
+ * instead of one per completed day.
+ * <p>
+ * Every entry change goes through {@link #onEntryChanged} in the writing transaction.
+ * Masks of data written before the rollup existed are filled by {@link #rebuild}.
+ */
+@Service
+public class MonthSummaryService {
+
+    private final HabitMonthSummaryRepository summaryRepository;
+    private final HabitRepository habitRepository;
+    private final EntryArchiveService archiveService;
+    private final int minRangeDays;
+
+    public MonthSummaryService(HabitMonthSummaryRepository summaryRepository, HabitRepository habitRepository,
+            EntryArchiveService archiveService,
+            @Value("${habit-tracker.entries.rollup.min-range-days:0}") int minRangeDays) {
+        this.summaryRepository = summaryRepository;
+        this.habitRepository = habitRepository;
+        this.archiveService = archiveService;
+        this.minRangeDays = minRangeDays;
+    }
+
+    /**
+     * Whether reads over the given range should use the rollup (never if min-range-days is 0)
+     */
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        return minRangeDays > 0 && ChronoUnit.DAYS.between(startDate, endDate) + 1 >= minRangeDays;
+    }
+
+    /**
+     * Whether full-history reads (stats recomputation) should use the rollup
+     */
+    public boolean isEnabled() {
+        return minRangeDays > 0;
+    }
+
+    /**
+     * Apply a completion change of a single entry.
+     * Must run in the same transaction as the entry write.
+     */
+    @Transactional
+    public void onEntryChanged(Long habitId, LocalDate date, boolean wasCompleted, boolean isCompleted) {
+        if (wasCompleted == isCompleted) {
+            return;
+        }
+        LocalDate monthStart = date.withDayOfMonth(1);
+        // Concurrent first writers of a month insert the row once; the others wait for it
+        HabitMonthSummary summary = summaryRepository.findForUpdate(habitId, monthStart).orElseGet(() -> {
+            summaryRepository.insertIfAbsent(OwnerContext.current(), habitId, monthStart);
+            return summaryRepository.findForUpdate(habitId, monthStart).orElseThrow();
+        });
+        summary.setCompleted(date.getDayOfMonth(), isCompleted);
+    }
+
+    /**
+     * Completed days of all habits within a date range, by habit id
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<LocalDate>> getCompletedDays(LocalDate startDate, LocalDate endDate) {
+        Map<Long, List<LocalDate>> days = new TreeMap<>();
+        for (HabitMonthSummary summary : summaryRepository.findByMonthStartBetween(
+                startDate.withDayOfMonth(1), endDate.withDayOfMonth(1))) {
+            List<LocalDate> habitDays = days.computeIfAbsent(summary.getHabitId(), id -> new ArrayList<>());
+            addDays(summary, startDate, endDate, habitDays);
+        }
+        return days;
+    }
+
+    /**
+     * All completed dates of a habit in date order, hot and archived
+     */
+    @Transactional(readOnly = true)
+    public List<LocalDate> getCompletedDates(Long habitId) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (HabitMonthSummary summary : summaryRepository.findByHabitId(habitId)) {
+            addDays(summary, LocalDate.MIN, LocalDate.MAX, dates);
+        }
+        return dates;
+    }
+
+    /**
+     * Recompute the masks of all habits of the current owner from their entries
+     *
+     * @return the number of habits rebuilt
+     */
+    @Transactional
+    public int rebuild() {
+        List<Habit> habits = habitRepository.findAll();
+        for (Habit habit : habits) {
+            rebuild(habit.getId());
+        }
+        return habits.size();
+    }
+
+    /**
+     * Recompute the masks of one habit from its entries, hot and archived
+     */
+    @Transactional
+    public void rebuild(Long habitId) {
+        summaryRepository.deleteByHabitId(habitId);
+        Map<LocalDate, HabitMonthSummary> months = new TreeMap<>();
+        for (LocalDate date : archiveService.getCompletedDates(habitId)) {
+            months.computeIfAbsent(date.withDayOfMonth(1), month -> new HabitMonthSummary(habitId, month))
+                    .setCompleted(date.getDayOfMonth(), true);
+        }
+        summaryRepository.saveAll(months.values());
+    }
+
+    /**
+     * Remove the masks of a deleted habit
+     */
+    @Transactional
+    public void deleteSummaries(Long habitId) {
+        summaryRepository.deleteByHabitId(habitId);
+    }
+
+    private static void addDays(HabitMonthSummary summary, LocalDate startDate, LocalDate endDate,
+            List<LocalDate> days) {
+        int mask = summary.getMask();
+        while (mask != 0) {
+            int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+            mask &= mask - 1;
+            LocalDate day = summary.getMonthStart().withDayOfMonth(dayOfMonth);
+            if (!day.isBefore(startDate) && !day.isAfter(endDate)) {
+                days.add(day);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package htw.webtech.habit_tracker.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Owner (user id) of the data the current thread works on.
+ * <p>
+ * Set per request by OwnerFilter; Hibernate adds owner_id = current owner to every query on
+ * Habit and HabitEntry (@TenantId) and fills it on insert, and the shard router picks the
+ * owner's database with it. Threads without an owner use {@link #DEFAULT_OWNER}.
+ */
+public final class OwnerContext {
+
+    // Owner of data created before owners existed and of requests without X-User-Id
+    public static final long DEFAULT_OWNER = 0L;
+    // Unscoped access for maintenance jobs (compaction); never set for requests
+    public static final long ALL_OWNERS = -1L;
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private OwnerContext() {
+    }
+
+    public static long current() {
+        Long owner = CURRENT.get();
+        return owner != null ? owner : DEFAULT_OWNER;
+    }
+
+    /**
+     * Bind the owner to the current thread until {@link #clear()}
+     */
+    public static void set(long ownerId) {
+        CURRENT.set(ownerId);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Run a task as the given owner, restoring the previous owner afterwards
+     */
+    public static void runAs(long ownerId, Runnable task) {
+        callAs(ownerId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Call a task as the given owner, restoring the previous owner afterwards
+     */
+    public static <T> T callAs(long ownerId, Supplier<T> task) {
+        Long previous = CURRENT.get();
+        CURRENT.set(ownerId);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.model.Tombstone;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.repository.TombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Delta sync based on the change sequence.
+ * <p>
+ * The returned cursor is the highest sequence number delivered. A transaction can draw a
+ * lower number and commit after the read, so a delta read starts {@code overlap} numbers
+ * below the cursor and repeats the changes in that window; clients apply changes
+ * idempotently. A write is only missed if more than {@code overlap} numbers are drawn
+ * between its draw and its commit.
+ */
+@Service
+public class SyncService {
+
+    private final HabitRepository habitRepository;
+    private final HabitEntryRepository entryRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final EntryArchiveService archiveService;
+    private final long overlap;
+
+    public SyncService(HabitRepository habitRepository, HabitEntryRepository entryRepository,
+            TombstoneRepository tombstoneRepository, EntryArchiveService archiveService,
+            @Value("${habit-tracker.sync.overlap:1000}") long overlap) {
+        this.habitRepository = habitRepository;
+        this.entryRepository = entryRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.archiveService = archiveService;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Get everything that changed after the given cursor, or a full snapshot if the cursor is null
+     */
+    @Transactional(readOnly = true)
+    public Changes changesSince(Long cursor) {
+        if (cursor == null || cursor <= 0) {
+            List<Habit> habits = habitRepository.findAll();
+            List<HabitEntry> entries = new ArrayList<>(archiveService.getEntries(null));
+            entries.addAll(entryRepository.findAllOfVisibleHabits());
+            // Deletes before the snapshot are already reflected in it, but the cursor must skip them
+            long nextCursor = maxSeq(habits, entries, tombstoneRepository.findMaxSeq(OwnerContext.current()), 0L);
+            return new Changes(nextCursor, true, habits, entries, List.of());
+        }
+
+        long from = Math.max(0L, cursor - overlap);
+        List<Habit> habits = habitRepository.findByChangeSeqGreaterThanOrderByChangeSeq(from);
+        // An entry can be archived after it changed, archiving keeps its number
+        List<HabitEntry> entries = new ArrayList<>(archiveService.getEntriesChangedAfter(from));
+        entries.addAll(entryRepository.findByChangeSeqGreaterThanOrderByChangeSeq(from));
+        entries.sort(Comparator.comparing(HabitEntry::getChangeSeq, Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<Tombstone> tombstones = tombstoneRepository.findByOwnerIdAndSeqGreaterThanOrderBySeq(
+                OwnerContext.current(), from);
+        Long lastTombstone = tombstones.isEmpty() ? null : tombstones.get(tombstones.size() - 1).getSeq();
+        // The overlap may only repeat changes, the cursor never moves back
+        long nextCursor = Math.max(cursor, maxSeq(habits, entries, lastTombstone, cursor));
+        return new Changes(nextCursor, false, habits, entries, tombstones);
+    }
+
+    private long maxSeq(List<Habit> habits, List<HabitEntry> entries, Long tombstoneSeq, long fallback) {
+        return Stream.concat(
+                        Stream.concat(habits.stream().map(Habit::getChangeSeq),
+                                entries.stream().map(HabitEntry::getChangeSeq)),
+                        Stream.of(tombstoneSeq))
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(fallback);
+    }
+
+    public record Changes(long cursor, boolean full, List<Habit> habits, List<HabitEntry> entries,
+            List<Tombstone> tombstones) {
+    }
+}
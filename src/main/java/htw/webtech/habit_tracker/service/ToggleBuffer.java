@@ -0,0 +1,215 @@
+package htw.webtech.habit_tracker.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind state for toggles: the latest completion state per (owner, habit, date) that
+ * is not yet in the database. All methods work on the current owner (see
+ * {@link OwnerContext}). Repeated toggles of one day only change the buffered value,
+ * {@link ToggleBufferFlusher} writes the final states in batches.
+ * <p>
+ * A flush first moves the pending states to an in-flight map, so lookups keep seeing
+ * them until the batch is committed. A direct write of an in-flight day waits for the flush
+ * to end, so the flush cannot overwrite it.
+ */
+@Component
+public class ToggleBuffer {
+
+    private final boolean enabled;
+    // Guards the swap of pending to in-flight; toggles share the read lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Map<Key, Boolean> pending = new ConcurrentHashMap<>();
+    private volatile Map<Key, Boolean> inFlight = Map.of();
+    // Ended flushes; a flush can change the stored state a toggle read
+    private volatile long flushes;
+    // Signalled when a flush ends, for discards waiting on an in-flight day
+    private final Lock flushLock = new ReentrantLock();
+    private final Condition flushEnded = flushLock.newCondition();
+
+    public ToggleBuffer(@Value("${habit-tracker.entries.write-behind.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Flip the buffered state of a day
+     *
+     * @param persisted state in the database, only read if the day is not buffered
+     * @return the new state
+     */
+    public boolean toggle(Long habitId, LocalDate date, Supplier<Boolean> persisted) {
+        Key key = new Key(OwnerContext.current(), habitId, date);
+        while (true) {
+            // Queried before entering the map, whose lock must not wait for the database; the
+            // value is only used if no flush ended in between
+            long flushesSeen = flushes;
+            Boolean stored = pending.containsKey(key) || inFlight.containsKey(key) ? null : persisted.get();
+            swapLock.readLock().lock();
+            try {
+                Boolean toggled = pending.compute(key, (k, state) -> {
+                    if (state != null) {
+                        return !state;
+                    }
+                    Boolean flushing = inFlight.get(k);
+                    if (flushing != null) {
+                        return !flushing;
+                    }
+                    return stored != null && flushes == flushesSeen ? !stored : null;
+                });
+                if (toggled != null) {
+                    return toggled;
+                }
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Set the buffered state of a day
+     */
+    public void set(Long habitId, LocalDate date, boolean completed) {
+        swapLock.readLock().lock();
+        try {
+            pending.put(new Key(OwnerContext.current(), habitId, date), completed);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop a buffered state that a direct write supersedes. If the day is being flushed, waits
+     * for the flush to end first; call it before the direct write takes any row locks.
+     */
+    public void discard(Long habitId, LocalDate date) {
+        Key key = new Key(OwnerContext.current(), habitId, date);
+        while (true) {
+            swapLock.readLock().lock();
+            try {
+                if (!inFlight.containsKey(key)) {
+                    pending.remove(key);
+                    return;
+                }
+            } finally {
+                swapLock.readLock().unlock();
+            }
+            flushLock.lock();
+            try {
+                while (inFlight.containsKey(key)) {
+                    flushEnded.awaitUninterruptibly();
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Buffered state of a day, if any
+     */
+    public Optional<Boolean> get(Long habitId, LocalDate date) {
+        Key key = new Key(OwnerContext.current(), habitId, date);
+        Boolean state = pending.get(key);
+        return Optional.ofNullable(state != null ? state : inFlight.get(key));
+    }
+
+    /**
+     * Whether the current owner has buffered states
+     */
+    public boolean hasStates() {
+        long ownerId = OwnerContext.current();
+        return pending.keySet().stream().anyMatch(key -> key.ownerId() == ownerId)
+                || inFlight.keySet().stream().anyMatch(key -> key.ownerId() == ownerId);
+    }
+
+    /**
+     * All buffered states in a date range, optionally for one habit only (habitId null = all)
+     */
+    public List<State> find(Long habitId, LocalDate startDate, LocalDate endDate) {
+        long ownerId = OwnerContext.current();
+        Map<Key, Boolean> merged = new HashMap<>(inFlight);
+        merged.putAll(pending);
+        List<State> result = new ArrayList<>();
+        merged.forEach((key, completed) -> {
+            if (key.ownerId() == ownerId && (habitId == null || habitId.equals(key.habitId()))
+                    && !key.date().isBefore(startDate) && !key.date().isAfter(endDate)) {
+                result.add(key.state(completed));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Move all pending states of every owner in flight and return them for writing
+     */
+    List<State> beginFlush() {
+        swapLock.writeLock().lock();
+        try {
+            Map<Key, Boolean> drained = pending;
+            pending = new ConcurrentHashMap<>();
+            inFlight = drained;
+            List<State> states = new ArrayList<>(drained.size());
+            drained.forEach((key, completed) -> states.add(key.state(completed)));
+            return states;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * End a flush; on failure the in-flight states go back to pending unless toggled since
+     */
+    void endFlush(boolean committed) {
+        swapLock.writeLock().lock();
+        try {
+            if (!committed) {
+                inFlight.forEach(pending::putIfAbsent);
+            }
+            inFlight = Map.of();
+            flushes++;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        flushLock.lock();
+        try {
+            flushEnded.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    int size() {
+        return pending.size() + inFlight.size();
+    }
+
+    /**
+     * Buffered completion state of a day
+     */
+    public record State(long ownerId, Long habitId, LocalDate date, boolean completed) {
+    }
+
+    private record Key(long ownerId, Long habitId, LocalDate date) {
+
+        State state(boolean completed) {
+            return new State(ownerId, habitId, date, completed);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package htw.webtech.habit_tracker.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes buffered toggles to the database on a short interval and once more on shutdown
+ */
+@Component
+@ConditionalOnProperty(name = "habit-tracker.entries.write-behind.enabled", havingValue = "true")
+public class ToggleBufferFlusher {
+
+    private static final Logger log = LoggerFactory.getLogger(ToggleBufferFlusher.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final ToggleBuffer buffer;
+    private final HabitEntryService entryService;
+
+    public ToggleBufferFlusher(ToggleBuffer buffer, HabitEntryService entryService, MeterRegistry meterRegistry) {
+        this.buffer = buffer;
+        this.entryService = entryService;
+        Gauge.builder("entries.write_behind.pending", buffer, ToggleBuffer::size)
+                .description("Toggled entry states not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${habit-tracker.entries.write-behind.flush-interval-ms:200}")
+    public synchronized void flush() {
+        List<ToggleBuffer.State> states = buffer.beginFlush();
+        if (states.isEmpty()) {
+            buffer.endFlush(true);
+            return;
+        }
+        boolean committed = false;
+        try {
+            // One transaction per owner and batch (owners may live on different shards); the
+            // buffered states stay visible until all are written
+            Map<Long, List<ToggleBuffer.State>> statesByOwner = states.stream()
+                    .collect(Collectors.groupingBy(ToggleBuffer.State::ownerId));
+            statesByOwner.forEach((ownerId, ownerStates) -> OwnerContext.runAs(ownerId, () -> {
+                for (int i = 0; i < ownerStates.size(); i += BATCH_SIZE) {
+                    entryService.writeBuffered(ownerStates.subList(i, Math.min(i + BATCH_SIZE, ownerStates.size())));
+                }
+            }));
+            committed = true;
+        } catch (RuntimeException e) {
+            log.error("Flushing {} buffered toggles failed, retrying with the next flush", states.size(), e);
+        } finally {
+            buffer.endFlush(committed);
+        }
+    }
+
+    // Runs before the entry service and the data source are destroyed
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+}
@@ -0,0 +1,109 @@
+package htw.webtech.habit_tracker.service;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.repository.HabitEntryAggregateRepository.WeekCount;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Completions per ISO week and whether the weekly target was met.
+ * <p>
+ * The counting is done by a GROUP BY in the database, so at most one row per habit
+ * and week is read; weeks without completions are filled in here.
+ */
+@Service
+public class WeeklyProgressService {
+
+    private final HabitEntryRepository entryRepository;
+    private final HabitService habitService;
+
+    public WeeklyProgressService(HabitEntryRepository entryRepository, HabitService habitService) {
+        this.entryRepository = entryRepository;
+        this.habitService = habitService;
+    }
+
+    /**
+     * Get the weeks overlapping the range for one habit
+     *
+     * @return the weeks, or empty if habit not found
+     */
+    @Transactional(readOnly = true)
+    public Optional<HabitWeeks> getWeeks(Long habitId, LocalDate startDate, LocalDate endDate) {
+        return habitService.getHabitById(habitId).map(habit -> {
+            LocalDate firstWeek = weekStart(startDate);
+            LocalDate lastWeek = weekStart(endDate);
+            List<WeekCount> counts = entryRepository.countCompletedByWeek(
+                    OwnerContext.current(), habitId, firstWeek, lastWeek.plusDays(6));
+            return toHabitWeeks(habit, counts, firstWeek, lastWeek);
+        });
+    }
+
+    /**
+     * Get the weeks overlapping the range for all habits, with a single aggregate query
+     */
+    @Transactional(readOnly = true)
+    public List<HabitWeeks> getAllWeeks(LocalDate startDate, LocalDate endDate) {
+        LocalDate firstWeek = weekStart(startDate);
+        LocalDate lastWeek = weekStart(endDate);
+
+        Map<Long, List<WeekCount>> countsByHabit = new HashMap<>();
+        for (WeekCount count : entryRepository.countCompletedByWeek(
+                OwnerContext.current(), null, firstWeek, lastWeek.plusDays(6))) {
+            countsByHabit.computeIfAbsent(count.habitId(), id -> new ArrayList<>()).add(count);
+        }
+
+        List<HabitWeeks> result = new ArrayList<>();
+        habitService.getAllHabits().stream()
+                .sorted(Comparator.comparing(Habit::getId))
+                .forEach(habit -> result.add(toHabitWeeks(
+                        habit, countsByHabit.getOrDefault(habit.getId(), List.of()), firstWeek, lastWeek)));
+        return result;
+    }
+
+    /**
+     * Number of completions per week that counts as met: the weekly target, or every day for daily habits
+     */
+    static int weeklyTarget(Habit habit) {
+        if (habit.getType() == Habit.HabitType.WEEKLY) {
+            Integer target = habit.getTargetPerWeek();
+            return target != null && target > 0 ? target : 1;
+        }
+        return 7;
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(DayOfWeek.MONDAY);
+    }
+
+    private static HabitWeeks toHabitWeeks(Habit habit, List<WeekCount> counts, LocalDate firstWeek,
+            LocalDate lastWeek) {
+        Map<LocalDate, Integer> completedByWeek = new HashMap<>();
+        for (WeekCount count : counts) {
+            completedByWeek.put(count.weekStart(), count.completed());
+        }
+
+        int target = weeklyTarget(habit);
+        List<Week> weeks = new ArrayList<>();
+        for (LocalDate week = firstWeek; !week.isAfter(lastWeek); week = week.plusWeeks(1)) {
+            int completed = completedByWeek.getOrDefault(week, 0);
+            weeks.add(new Week(week, completed, completed >= target));
+        }
+        return new HabitWeeks(habit.getId(), habit.getType(), target, weeks);
+    }
+
+    public record Week(LocalDate weekStart, int completed, boolean targetMet) {
+    }
+
+    public record HabitWeeks(Long habitId, Habit.HabitType type, int target, List<Week> weeks) {
+    }
+}
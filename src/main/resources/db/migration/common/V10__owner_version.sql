@@ -0,0 +1,17 @@
+-- Version of each owner's data for conditional GETs (see DataVersion), bumped by every write
+-- in its own transaction. Starts at the highest change number an owner had, so ETags handed
+-- out before never match a later version.
+
+CREATE TABLE owner_version (
+    owner_id  BIGINT PRIMARY KEY,
+    version   BIGINT NOT NULL
+);
+
+INSERT INTO owner_version (owner_id, version)
+SELECT owner_id, COALESCE(MAX(seq), 0) FROM (
+    SELECT owner_id, change_seq AS seq FROM habit
+    UNION ALL SELECT owner_id, change_seq FROM habit_entry
+    UNION ALL SELECT owner_id, change_seq FROM habit_entry_archive
+    UNION ALL SELECT owner_id, seq FROM tombstone
+) changes
+GROUP BY owner_id;
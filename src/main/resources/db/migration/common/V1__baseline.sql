@@ -0,0 +1,44 @@
+-- Schema as previously created by ddl-auto=update; existing databases are baselined at this version
+
+CREATE TABLE habit (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name             VARCHAR(100) NOT NULL,
+    description      VARCHAR(500),
+    color            VARCHAR(255),
+    icon             VARCHAR(255),
+    type             VARCHAR(20) DEFAULT 'DAILY' NOT NULL,
+    target_per_week  INTEGER,
+    created_at       DATE,
+    change_seq       BIGINT
+);
+
+CREATE INDEX idx_habit_change_seq ON habit (change_seq);
+
+CREATE SEQUENCE habit_entry_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE habit_entry (
+    id          BIGINT PRIMARY KEY,
+    habit_id    BIGINT NOT NULL REFERENCES habit (id),
+    date        DATE NOT NULL,
+    completed   BOOLEAN NOT NULL,
+    change_seq  BIGINT,
+    CONSTRAINT uk_habit_entry_habit_date UNIQUE (habit_id, date)
+);
+
+CREATE INDEX idx_habit_entry_change_seq ON habit_entry (change_seq);
+
+CREATE TABLE habit_stats (
+    habit_id           BIGINT PRIMARY KEY,
+    current_streak     INTEGER NOT NULL,
+    longest_streak     INTEGER NOT NULL,
+    total_completions  INTEGER NOT NULL,
+    streak_end         DATE
+);
+
+CREATE SEQUENCE change_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE tombstone (
+    seq          BIGINT PRIMARY KEY,
+    entity_type  VARCHAR(20) NOT NULL CHECK (entity_type IN ('HABIT', 'ENTRY')),
+    entity_id    BIGINT NOT NULL
+);
@@ -0,0 +1,13 @@
+-- Every habit, entry and tombstone belongs to an owner (user id); existing rows go to the
+-- default owner 0. All queries filter on owner_id, so the indexes lead with it.
+ALTER TABLE habit ADD COLUMN owner_id BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE habit_entry ADD COLUMN owner_id BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE tombstone ADD COLUMN owner_id BIGINT DEFAULT 0 NOT NULL;
+
+DROP INDEX IF EXISTS idx_habit_change_seq;
+DROP INDEX IF EXISTS idx_habit_entry_change_seq;
+
+CREATE INDEX idx_habit_owner_id ON habit (owner_id, id);
+CREATE INDEX idx_habit_owner_change_seq ON habit (owner_id, change_seq);
+CREATE INDEX idx_habit_entry_owner_change_seq ON habit_entry (owner_id, change_seq);
+CREATE INDEX idx_tombstone_owner_seq ON tombstone (owner_id, seq);
@@ -0,0 +1,17 @@
+-- Cold tier for entries older than habit-tracker.entries.archive.after-days (see EntryArchivalJob);
+-- rows keep the id, change_seq and owner of the original entry
+
+CREATE TABLE habit_entry_archive (
+    id          BIGINT PRIMARY KEY,
+    habit_id    BIGINT NOT NULL REFERENCES habit (id),
+    date        DATE NOT NULL,
+    completed   BOOLEAN NOT NULL,
+    change_seq  BIGINT,
+    owner_id    BIGINT NOT NULL
+);
+
+CREATE INDEX idx_habit_entry_archive_owner_habit_date ON habit_entry_archive (owner_id, habit_id, date);
+CREATE INDEX idx_habit_entry_archive_owner_date ON habit_entry_archive (owner_id, date, habit_id);
+
+-- Lets the archival job pick the oldest entries of all owners without scanning habit_entry
+CREATE INDEX idx_habit_entry_date ON habit_entry (date);
@@ -0,0 +1,14 @@
+-- Monthly rollup of completed days (see HabitMonthSummary); filled by the application,
+-- existing data is backfilled with habit-tracker.entries.rollup.rebuild-on-startup=true.
+-- Derived data like habit_stats, removed together with the habit by HabitService
+
+CREATE TABLE habit_month_summary (
+    habit_id        BIGINT NOT NULL,
+    month_start     DATE NOT NULL,
+    mask            INTEGER NOT NULL,
+    completed_days  INTEGER NOT NULL,
+    owner_id        BIGINT NOT NULL,
+    PRIMARY KEY (habit_id, month_start)
+);
+
+CREATE INDEX idx_habit_month_summary_owner_month ON habit_month_summary (owner_id, month_start, habit_id);
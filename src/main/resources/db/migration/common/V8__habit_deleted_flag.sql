@@ -0,0 +1,2 @@
+-- Habits with many entries are marked deleted and purged in the background (see HabitPurgeJob)
+ALTER TABLE habit ADD COLUMN deleted BOOLEAN DEFAULT FALSE NOT NULL;
@@ -0,0 +1,2 @@
+-- DataVersion reads the highest change_seq per owner from every table, archive included
+CREATE INDEX idx_habit_entry_archive_owner_change_seq ON habit_entry_archive (owner_id, change_seq);
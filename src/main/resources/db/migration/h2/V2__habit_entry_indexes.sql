@@ -0,0 +1,3 @@
+-- findByDate / findByDateBetween and the dashboard filter by date across all habits
+-- (H2 has no INCLUDE columns; per-habit reads use the unique (habit_id, date) index)
+CREATE INDEX IF NOT EXISTS idx_habit_entry_date_habit ON habit_entry (date, habit_id);
@@ -0,0 +1,2 @@
+-- H2 has no partial indexes
+CREATE INDEX IF NOT EXISTS idx_habit_entry_uncompleted ON habit_entry (completed, id);
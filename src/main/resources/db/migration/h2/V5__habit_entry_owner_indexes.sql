@@ -0,0 +1,3 @@
+-- Date queries are per owner now
+DROP INDEX IF EXISTS idx_habit_entry_date_habit;
+CREATE INDEX IF NOT EXISTS idx_habit_entry_owner_date ON habit_entry (owner_id, date, habit_id);
@@ -0,0 +1,9 @@
+-- findByDate / findByDateBetween and the dashboard filter by date across all habits; the
+-- INCLUDE columns let these and the per-habit range reads run as index-only scans
+CREATE INDEX IF NOT EXISTS idx_habit_entry_date_habit
+    ON habit_entry (date, habit_id) INCLUDE (id, completed, change_seq);
+CREATE INDEX IF NOT EXISTS idx_habit_entry_habit_date
+    ON habit_entry (habit_id, date) INCLUDE (id, completed, change_seq);
+
+-- Entries of databases from before the sequence switch still have identity ids
+SELECT setval('habit_entry_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM habit_entry), 1));
@@ -0,0 +1,3 @@
+-- Lets the compaction job find unchecked rows without scanning the table; stays small
+-- because the job keeps deleting them
+CREATE INDEX IF NOT EXISTS idx_habit_entry_uncompleted ON habit_entry (id) WHERE completed = false;
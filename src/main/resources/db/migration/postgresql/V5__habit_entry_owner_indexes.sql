@@ -0,0 +1,9 @@
+-- Date queries are per owner now; owner_id is also included in the per-habit index so the
+-- owner filter Hibernate adds does not prevent index-only scans
+DROP INDEX IF EXISTS idx_habit_entry_date_habit;
+CREATE INDEX IF NOT EXISTS idx_habit_entry_owner_date
+    ON habit_entry (owner_id, date, habit_id) INCLUDE (id, completed, change_seq);
+
+DROP INDEX IF EXISTS idx_habit_entry_habit_date;
+CREATE INDEX IF NOT EXISTS idx_habit_entry_habit_date
+    ON habit_entry (habit_id, date) INCLUDE (id, completed, change_seq, owner_id);
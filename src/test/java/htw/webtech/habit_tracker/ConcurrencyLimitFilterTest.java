@@ -0,0 +1,87 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.config.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 0, meterRegistry);
+
+    @Test
+    void doFilter_shouldPassRequests_whilePermitsAreFree() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), response,
+                (req, res) -> calls.incrementAndGet());
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), new MockHttpServletResponse(),
+                (req, res) -> calls.incrementAndGet());
+
+        assertEquals(2, calls.get());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_shouldReturn503_whenAllPermitsAreTaken() throws Exception {
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+
+        // The outer request holds the only permit while the inner one arrives
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), new MockHttpServletResponse(),
+                (req, res) -> filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), inner,
+                        (innerReq, innerRes) -> fail("Request should have been rejected")));
+
+        assertEquals(503, inner.getStatus());
+        assertEquals("1", inner.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("concurrency.limit.rejected").counter().count());
+    }
+
+    @Test
+    void doFilter_shouldNotLimitNonApiRequests() throws Exception {
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+        AtomicInteger calls = new AtomicInteger();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), new MockHttpServletResponse(),
+                (req, res) -> filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), inner,
+                        (innerReq, innerRes) -> calls.incrementAndGet()));
+
+        assertEquals(1, calls.get());
+        assertEquals(200, inner.getStatus());
+    }
+
+    @Test
+    void doFilter_shouldHoldThePermit_untilAsyncProcessingCompletes() throws Exception {
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/entries/export");
+        streaming.setAsyncSupported(true);
+        filter.doFilter(streaming, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        MockHttpServletResponse whileStreaming = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), whileStreaming,
+                (req, res) -> fail("Request should have been rejected"));
+        streaming.getAsyncContext().complete();
+        AtomicInteger calls = new AtomicInteger();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), new MockHttpServletResponse(),
+                (req, res) -> calls.incrementAndGet());
+
+        assertEquals(503, whileStreaming.getStatus());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void doFilter_shouldNotLimitTheEventStream() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/habits"), new MockHttpServletResponse(),
+                (req, res) -> filter.doFilter(new MockHttpServletRequest("GET", "/api/events"),
+                        new MockHttpServletResponse(), (innerReq, innerRes) -> calls.incrementAndGet()));
+
+        assertEquals(1, calls.get());
+    }
+}
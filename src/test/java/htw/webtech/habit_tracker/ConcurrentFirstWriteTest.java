@@ -0,0 +1,134 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitMonthSummaryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.repository.HabitStatsRepository;
+import htw.webtech.habit_tracker.service.HabitStatsService;
+import htw.webtech.habit_tracker.service.MonthSummaryService;
+import htw.webtech.habit_tracker.service.OwnerContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rows created on the first write of a key must not collide when two writers get there at once
+@SpringBootTest
+class ConcurrentFirstWriteTest {
+
+    private static final int ROUNDS = 20;
+    private static final int WRITERS = 4;
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private HabitStatsRepository statsRepository;
+
+    @Autowired
+    private HabitStatsService statsService;
+
+    @Autowired
+    private MonthSummaryService monthSummaries;
+
+    @Autowired
+    private HabitMonthSummaryRepository summaryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        summaryRepository.deleteAll();
+        statsRepository.deleteAll();
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+    }
+
+    @Test
+    void statsOnEntryChanged_shouldCreateTheStatsRowOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Habit habit = createHabit();
+
+            runConcurrently(writer -> statsService.onEntryChanged(habit, DAY.plusDays(writer), false, true));
+
+            assertTrue(statsRepository.existsById(habit.getId()));
+        }
+    }
+
+    @Test
+    void monthSummaryOnEntryChanged_shouldCreateTheMonthRowOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Habit habit = createHabit();
+
+            // Different days of the same month, so every writer sets its own bit
+            runConcurrently(writer -> monthSummaries.onEntryChanged(habit.getId(), DAY.plusDays(writer), false, true));
+
+            assertEquals(WRITERS, monthSummaries.getCompletedDates(habit.getId()).size());
+        }
+    }
+
+    @Test
+    void upsertSet_shouldReportTheValueEachWriterReplaced() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Habit habit = createHabit();
+            Queue<Boolean> previous = new ConcurrentLinkedQueue<>();
+
+            runConcurrently(writer -> transactionTemplate.executeWithoutResult(status -> previous.add(
+                    entryRepository.upsertSet(OwnerContext.DEFAULT_OWNER, habit.getId(), DAY, true)
+                            .orElseThrow().previouslyCompleted())));
+
+            // Only the first writer changed the entry
+            assertEquals(1, previous.stream().filter(completed -> !completed).count());
+        }
+    }
+
+    // Starts all writers at the same moment, each in its own transaction; fails on any exception
+    private void runConcurrently(IntConsumer write) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(WRITERS);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                int writer = i;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    write.accept(writer);
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Habit createHabit() {
+        Habit habit = new Habit();
+        habit.setName("Habit");
+        habit.setColor("blue");
+        habit.setType(Habit.HabitType.DAILY);
+        return habitRepository.save(habit);
+    }
+}
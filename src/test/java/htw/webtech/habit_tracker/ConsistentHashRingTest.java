@@ -0,0 +1,61 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.config.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int OWNERS = 10_000;
+
+    @Test
+    void shardFor_shouldBeStable() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing sameConfig = new ConsistentHashRing(List.of("c", "a", "b"), 128);
+
+        for (long owner = 0; owner < 1000; owner++) {
+            assertEquals(ring.shardFor(owner), sameConfig.shardFor(owner));
+        }
+    }
+
+    @Test
+    void shardFor_shouldSpreadOwnersOverAllShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long owner = 0; owner < OWNERS; owner++) {
+            counts.merge(ring.shardFor(owner), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > OWNERS / 3 / 2, "Unbalanced: " + counts));
+    }
+
+    @Test
+    void addingShard_shouldOnlyMoveOwnersToTheNewShard() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        int moved = 0;
+        for (long owner = 0; owner < OWNERS; owner++) {
+            String shard = after.shardFor(owner);
+            if (!shard.equals(before.shardFor(owner))) {
+                assertEquals("d", shard);
+                moved++;
+            }
+        }
+
+        // About a quarter of the owners move, not most of them as with owner % shards
+        assertTrue(moved > OWNERS / 8 && moved < OWNERS / 2, "Moved " + moved);
+    }
+
+    @Test
+    void constructor_shouldRejectEmptyShardList() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+    }
+}
@@ -0,0 +1,79 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DashboardControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+    }
+
+    @Test
+    void getDashboard_shouldReturnCompletionMatrix() throws Exception {
+        // Given
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        Habit sport = createHabit("Sport");
+        Habit lesen = createHabit("Lesen");
+        entryRepository.save(new HabitEntry(sport, start, true));
+        entryRepository.save(new HabitEntry(sport, start.plusDays(2), true));
+        entryRepository.save(new HabitEntry(sport, start.plusDays(1), false));
+        entryRepository.save(new HabitEntry(sport, start.plusDays(10), true)); // Outside range
+
+        // When & Then
+        mockMvc.perform(get("/api/dashboard")
+                        .param("start", start.toString())
+                        .param("end", start.plusDays(3).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habits", hasSize(2)))
+                .andExpect(jsonPath("$.habits[0].id", is(sport.getId().intValue())))
+                .andExpect(jsonPath("$.habits[0].days", is("1010")))
+                .andExpect(jsonPath("$.habits[1].name", is("Lesen")))
+                .andExpect(jsonPath("$.habits[1].days", is("0000")))
+                .andExpect(jsonPath("$.habits[0].description").doesNotExist());
+    }
+
+    @Test
+    void getDashboard_shouldReturnBadRequest_whenRangeInvalid() throws Exception {
+        mockMvc.perform(get("/api/dashboard")
+                        .param("start", "2024-01-10")
+                        .param("end", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Habit createHabit(String name) {
+        Habit habit = new Habit();
+        habit.setName(name);
+        habit.setColor("blue");
+        habit.setType(Habit.HabitType.DAILY);
+        habit.setCreatedAt(LocalDate.now());
+        return habitRepository.save(habit);
+    }
+}
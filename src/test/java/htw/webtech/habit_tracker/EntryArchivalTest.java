@@ -0,0 +1,301 @@
+package htw.webtech.habit_tracker;
+
+import com.jayway.jsonpath.JsonPath;
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryArchiveRepository;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.EntryArchivalJob;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "habit-tracker.entries.edit-window-days=30",
+        "habit-tracker.entries.archive.enabled=true",
+        "habit-tracker.entries.archive.after-days=60",
+        "habit-tracker.entries.archive.batch-size=2",
+        // Run explicitly by the tests
+        "habit-tracker.entries.archive.initial-delay-ms=3600000"
+})
+@AutoConfigureMockMvc
+class EntryArchivalTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private HabitEntryArchiveRepository archiveRepository;
+
+    @Autowired
+    private EntryArchivalJob archivalJob;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Habit testHabit;
+
+    @BeforeEach
+    void setUp() {
+        archiveRepository.deleteAll();
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        testHabit = new Habit();
+        testHabit.setName("Test Habit");
+        testHabit.setColor("blue");
+        testHabit = habitRepository.save(testHabit);
+
+        // Five old days, one day inside the horizon
+        for (int day = 100; day < 105; day++) {
+            entryRepository.save(new HabitEntry(testHabit, TODAY.minusDays(day), true));
+        }
+        entryRepository.save(new HabitEntry(testHabit, TODAY.minusDays(10), true));
+    }
+
+    // Other test classes share the database and delete habits without knowing the archive
+    @AfterEach
+    void tearDown() {
+        archiveRepository.deleteAll();
+    }
+
+    @Test
+    void archive_shouldMoveOnlyEntriesBeforeTheHorizon() {
+        assertEquals(5, archivalJob.archive());
+
+        List<HabitEntry> hot = entryRepository.findByHabitId(testHabit.getId());
+        assertEquals(1, hot.size());
+        assertEquals(TODAY.minusDays(10), hot.get(0).getDate());
+        assertEquals(5, archiveRepository.count());
+
+        assertEquals(0, archivalJob.archive());
+    }
+
+    @Test
+    void rangeRead_shouldIncludeArchive_whenRangeCrossesTheHorizon() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId() + "/range")
+                        .param("startDate", TODAY.minusDays(200).toString())
+                        .param("endDate", TODAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6)));
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", TODAY.minusDays(102).toString())
+                        .param("endDate", TODAY.minusDays(100).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[*].habitId", everyItem(is(testHabit.getId().intValue()))));
+    }
+
+    @Test
+    void rangeRead_shouldOnlyReturnHotEntries_withinTheHorizon() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", TODAY.minusDays(30).toString())
+                        .param("endDate", TODAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void habitEntries_shouldIncludeArchive() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6)));
+    }
+
+    @Test
+    void habitEntryPages_shouldContinueFromArchiveIntoHotEntries() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId()).param("limit", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].date", contains(TODAY.minusDays(104).toString(),
+                        TODAY.minusDays(103).toString(), TODAY.minusDays(102).toString(),
+                        TODAY.minusDays(101).toString())))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()));
+        String cursor = TODAY.minusDays(101) + ":" + archiveRepository.findAll().stream()
+                .filter(entry -> entry.getDate().equals(TODAY.minusDays(101)))
+                .findFirst().orElseThrow().getId();
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId())
+                        .param("limit", "4")
+                        .param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].date", contains(TODAY.minusDays(100).toString(),
+                        TODAY.minusDays(10).toString())))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void export_shouldMergeArchivedAndHotEntriesInDateOrder() throws Exception {
+        archivalJob.archive();
+        // Not archived yet, but older than every archived day
+        entryRepository.save(new HabitEntry(testHabit, TODAY.minusDays(120), true));
+
+        MvcResult result = mockMvc.perform(get("/api/entries/export")
+                        .param("startDate", TODAY.minusDays(200).toString())
+                        .param("endDate", TODAY.toString())
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> dates = csv.lines().skip(1).map(line -> line.split(",")[2]).toList();
+        assertEquals(List.of(120, 104, 103, 102, 101, 100, 10).stream()
+                .map(days -> TODAY.minusDays(days).toString()).toList(), dates);
+    }
+
+    @Test
+    void dashboardAndHeatmap_shouldIncludeArchive() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(get("/api/dashboard")
+                        .param("start", TODAY.minusDays(104).toString())
+                        .param("end", TODAY.minusDays(100).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habits[0].days", is("11111")));
+
+        Year year = Year.from(TODAY.minusDays(102));
+        long expected = Stream.of(104, 103, 102, 101, 100, 10)
+                .filter(days -> Year.from(TODAY.minusDays(days)).equals(year))
+                .count();
+        String bits = JsonPath.read(mockMvc.perform(get("/api/habits/heatmap").param("year", year.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.habits[0].bits");
+        assertEquals(expected, BitSet.valueOf(Base64.getDecoder().decode(bits)).cardinality());
+    }
+
+    @Test
+    void dashboard_shouldReadHotAndArchivedDaysInOneStatement() throws Exception {
+        archivalJob.archive();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // The range crosses the horizon: completed days of both tables, then the habits
+        mockMvc.perform(get("/api/dashboard")
+                        .param("start", TODAY.minusDays(104).toString())
+                        .param("end", TODAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habits[0].days", startsWith("11111")))
+                .andExpect(jsonPath("$.habits[0].days", endsWith("1" + "0".repeat(10))));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void weeks_shouldCountArchivedCompletions() throws Exception {
+        archivalJob.archive();
+
+        String body = mockMvc.perform(get("/api/habits/" + testHabit.getId() + "/weeks")
+                        .param("from", TODAY.minusDays(104).toString())
+                        .param("to", TODAY.minusDays(100).toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> completed = JsonPath.read(body, "$.weeks[*].completed");
+        assertEquals(5, completed.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void fullSync_shouldIncludeArchive() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(get("/api/sync"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.full", is(true)))
+                .andExpect(jsonPath("$.entries", hasSize(6)));
+    }
+
+    @Test
+    void stats_shouldCountArchivedCompletions() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(get("/api/habits/" + testHabit.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCompletions", is(6)))
+                .andExpect(jsonPath("$.longestStreak", is(5)));
+    }
+
+    @Test
+    void import_shouldWriteDaysBeforeTheEditWindowOnlyWhenAsked() throws Exception {
+        archivalJob.archive();
+        String csv = "habitId,date\n"
+                + testHabit.getId() + "," + TODAY.minusDays(40) + "\n"
+                + testHabit.getId() + "," + TODAY.minusDays(70) + "\n";
+
+        assertEquals("{\"line\":2,\"error\":\"Date is outside the edit window\"}\n"
+                + "{\"line\":3,\"error\":\"Date is archived\"}\n"
+                + "{\"processed\":2,\"imported\":0,\"unchanged\":0,\"failed\":2}\n"
+                + "{\"processed\":2,\"imported\":0,\"unchanged\":0,\"failed\":2,\"done\":true}\n",
+                runImport(csv, false));
+        // Archived days stay read-only even when the edit window is ignored
+        assertEquals("{\"line\":3,\"error\":\"Date is archived\"}\n"
+                + "{\"processed\":2,\"imported\":1,\"unchanged\":0,\"failed\":1}\n"
+                + "{\"processed\":2,\"imported\":1,\"unchanged\":0,\"failed\":1,\"done\":true}\n",
+                runImport(csv, true));
+
+        assertTrue(entryRepository.findByHabitIdAndDate(testHabit.getId(), TODAY.minusDays(40)).isPresent());
+        assertTrue(entryRepository.findByHabitIdAndDate(testHabit.getId(), TODAY.minusDays(70)).isEmpty());
+    }
+
+    @Test
+    void deleteHabit_shouldDeleteArchivedEntries() throws Exception {
+        archivalJob.archive();
+
+        mockMvc.perform(delete("/api/habits/" + testHabit.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(0, archiveRepository.count());
+    }
+
+    private String runImport(String csv, boolean ignoreEditWindow) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/import")
+                        .param("format", "csv")
+                        .param("ignoreEditWindow", String.valueOf(ignoreEditWindow))
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
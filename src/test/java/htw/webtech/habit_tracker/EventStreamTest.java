@@ -0,0 +1,122 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class EventStreamTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Habit testHabit;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        testHabit = new Habit();
+        testHabit.setName("Test Habit");
+        testHabit.setColor("blue");
+        testHabit.setType(Habit.HabitType.DAILY);
+        testHabit.setCreatedAt(LocalDate.now());
+        testHabit = habitRepository.save(testHabit);
+    }
+
+    @Test
+    void subscribe_shouldSendHeartbeatFirst() throws Exception {
+        MvcResult stream = subscribe();
+
+        // The dispatcher writes the first frame, which opens the stream for the client
+        String body = awaitContent(stream, ":heartbeat\n");
+        assertTrue(body.startsWith(":heartbeat"), body);
+    }
+
+    @Test
+    void toggle_shouldPushEntryEvent() throws Exception {
+        MvcResult stream = subscribe();
+
+        mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"2024-01-15\"}"))
+                .andExpect(status().isOk());
+
+        String body = awaitContent(stream, "event:entry\n");
+        assertTrue(body.contains("\"habitId\":" + testHabit.getId()), body);
+        assertTrue(body.contains("\"date\":\"2024-01-15\""), body);
+        assertTrue(body.contains("\"completed\":true"), body);
+    }
+
+    @Test
+    void deleteHabit_shouldPushHabitDeletedEvent() throws Exception {
+        MvcResult stream = subscribe();
+
+        mockMvc.perform(delete("/api/habits/" + testHabit.getId()))
+                .andExpect(status().isOk());
+
+        String body = awaitContent(stream, "event:habit-deleted\n");
+        assertTrue(body.contains("{\"id\":" + testHabit.getId() + "}"), body);
+    }
+
+    @Test
+    void failedWrite_shouldNotPushEvent() throws Exception {
+        MvcResult stream = subscribe();
+
+        mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":999999,\"date\":\"2024-01-15\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/habits/" + testHabit.getId()))
+                .andExpect(status().isOk());
+
+        // Events are delivered in order, so nothing was published for the unknown habit
+        String body = awaitContent(stream, "event:habit-deleted\n");
+        assertFalse(body.contains("event:entry"), body);
+    }
+
+    private MvcResult subscribe() throws Exception {
+        return mockMvc.perform(get("/api/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    // Events are written by the broadcaster's writer threads
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String body = stream.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = stream.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains(expected), body);
+        return body;
+    }
+}
@@ -4,17 +4,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import htw.webtech.habit_tracker.model.Habit;
 import htw.webtech.habit_tracker.repository.HabitRepository;
 import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.service.HabitService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,10 +40,18 @@ class HabitControllerTest {
     @Autowired
     private HabitEntryRepository entryRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private HabitService habitService;
+
     @BeforeEach
     void setUp() {
         entryRepository.deleteAll();
         habitRepository.deleteAll();
+        // Data is written through the repositories directly, bypassing cache eviction
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
     }
 
     @Test
@@ -64,6 +78,29 @@ class HabitControllerTest {
                 .andExpect(jsonPath("$[1].name", is("Lesen")));
     }
 
+    @Test
+    void getHabits_shouldReturnKeysetPages_whenLimitGiven() throws Exception {
+        // Given
+        Habit first = habitRepository.save(createHabit("Sport", "blue"));
+        Habit second = habitRepository.save(createHabit("Lesen", "green"));
+        Habit third = habitRepository.save(createHabit("Yoga", "purple"));
+
+        // When & Then
+        mockMvc.perform(get("/api/habits").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(first.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor", is(String.valueOf(second.getId()))));
+
+        mockMvc.perform(get("/api/habits")
+                        .param("limit", "2")
+                        .param("after", String.valueOf(second.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(third.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     void getHabit_shouldReturnHabit_whenExists() throws Exception {
         // Given
@@ -148,6 +185,66 @@ class HabitControllerTest {
                 .andExpect(jsonPath("$.color", is("green")));
     }
 
+    @Test
+    void updateHabit_shouldEvictCachedHabit() throws Exception {
+        // Given
+        Habit habit = habitRepository.save(createHabit("Alte Gewohnheit", "blue"));
+        mockMvc.perform(get("/api/habits/" + habit.getId()))
+                .andExpect(jsonPath("$.name", is("Alte Gewohnheit")));
+        mockMvc.perform(get("/api/habits"))
+                .andExpect(jsonPath("$[0].name", is("Alte Gewohnheit")));
+
+        Habit updateData = new Habit();
+        updateData.setName("Neue Gewohnheit");
+
+        // When
+        mockMvc.perform(put("/api/habits/" + habit.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateData)))
+                .andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/habits/" + habit.getId()))
+                .andExpect(jsonPath("$.name", is("Neue Gewohnheit")));
+        mockMvc.perform(get("/api/habits"))
+                .andExpect(jsonPath("$[0].name", is("Neue Gewohnheit")));
+    }
+
+    @Test
+    void getHabitById_shouldBeServedFromCache_whenRequestedTwice() throws Exception {
+        // Given
+        Habit habit = habitRepository.save(createHabit("Sport", "blue"));
+        mockMvc.perform(get("/api/habits/" + habit.getId()));
+
+        // When
+        mockMvc.perform(get("/api/habits/" + habit.getId()))
+                .andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name == 'habit')].hits", hasItem(greaterThanOrEqualTo(1))))
+                .andExpect(jsonPath("$[?(@.name == 'habit')].size", hasItem(1)));
+    }
+
+    @Test
+    void getHabitById_shouldHandOutCopiesOfTheCachedHabit() throws Exception {
+        // Given
+        Habit habit = habitRepository.save(createHabit("Sport", "blue"));
+        habitService.getHabitById(habit.getId());
+        habitService.getAllHabits();
+
+        // When
+        habitService.getHabitById(habit.getId()).orElseThrow().setName("Changed");
+        habitService.getAllHabits().get(0).setName("Changed");
+
+        // Then
+        mockMvc.perform(get("/api/habits/" + habit.getId()))
+                .andExpect(jsonPath("$.name", is("Sport")));
+        mockMvc.perform(get("/api/habits"))
+                .andExpect(jsonPath("$[0].name", is("Sport")));
+    }
+
     @Test
     void updateHabit_shouldReturn404_whenNotExists() throws Exception {
         Habit updateData = new Habit();
@@ -181,6 +278,172 @@ class HabitControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getHabitStats_shouldTrackStreaksIncrementally() throws Exception {
+        // Given
+        Habit habit = habitRepository.save(createHabit("Sport", "blue"));
+        LocalDate today = LocalDate.now();
+        toggle(habit, today.minusDays(2));
+        toggle(habit, today.minusDays(1));
+        toggle(habit, today);
+
+        // When & Then
+        mockMvc.perform(get("/api/habits/" + habit.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currentStreak", is(3)))
+                .andExpect(jsonPath("$.longestStreak", is(3)))
+                .andExpect(jsonPath("$.totalCompletions", is(3)));
+
+        // Unchecking a past day splits the streak
+        toggle(habit, today.minusDays(1));
+
+        mockMvc.perform(get("/api/habits/" + habit.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currentStreak", is(1)))
+                .andExpect(jsonPath("$.longestStreak", is(1)))
+                .andExpect(jsonPath("$.totalCompletions", is(2)));
+    }
+
+    @Test
+    void getHabitStats_shouldCountWeeksMeetingTarget_forWeeklyHabits() throws Exception {
+        // Given
+        Habit habit = createHabit("Laufen", "green");
+        habit.setType(Habit.HabitType.WEEKLY);
+        habit.setTargetPerWeek(2);
+        habit = habitRepository.save(habit);
+        LocalDate lastMonday = LocalDate.now().with(DayOfWeek.MONDAY).minusWeeks(1);
+        toggle(habit, lastMonday.minusWeeks(1));
+        toggle(habit, lastMonday);
+        toggle(habit, lastMonday.plusDays(2));
+
+        // When & Then
+        mockMvc.perform(get("/api/habits/" + habit.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type", is("WEEKLY")))
+                .andExpect(jsonPath("$.currentStreak", is(1)))
+                .andExpect(jsonPath("$.longestStreak", is(1)))
+                .andExpect(jsonPath("$.totalCompletions", is(3)))
+                .andExpect(jsonPath("$.lastMetPeriod", is(lastMonday.toString())));
+    }
+
+    @Test
+    void getHabitStats_shouldReturn404_whenNotExists() throws Exception {
+        mockMvc.perform(get("/api/habits/999/stats"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getHabitWeeks_shouldCountCompletionsPerIsoWeek() throws Exception {
+        // Given
+        Habit habit = createHabit("Laufen", "green");
+        habit.setType(Habit.HabitType.WEEKLY);
+        habit.setTargetPerWeek(2);
+        habit = habitRepository.save(habit);
+        LocalDate monday = LocalDate.of(2024, 1, 8);
+        toggle(habit, monday);
+        toggle(habit, monday.plusDays(6));
+        toggle(habit, monday.plusDays(7));
+
+        // When & Then: the range is widened to whole weeks, empty weeks are included
+        mockMvc.perform(get("/api/habits/" + habit.getId() + "/weeks")
+                        .param("from", monday.plusDays(3).toString())
+                        .param("to", monday.plusDays(15).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.target", is(2)))
+                .andExpect(jsonPath("$.weeks", hasSize(3)))
+                .andExpect(jsonPath("$.weeks[0].weekStart", is("2024-01-08")))
+                .andExpect(jsonPath("$.weeks[0].completed", is(2)))
+                .andExpect(jsonPath("$.weeks[0].targetMet", is(true)))
+                .andExpect(jsonPath("$.weeks[1].completed", is(1)))
+                .andExpect(jsonPath("$.weeks[1].targetMet", is(false)))
+                .andExpect(jsonPath("$.weeks[2].weekStart", is("2024-01-22")))
+                .andExpect(jsonPath("$.weeks[2].completed", is(0)));
+    }
+
+    @Test
+    void getAllHabitWeeks_shouldReturnWeeksOfEveryHabit() throws Exception {
+        // Given
+        Habit sport = habitRepository.save(createHabit("Sport", "blue"));
+        Habit reading = habitRepository.save(createHabit("Lesen", "green"));
+        LocalDate monday = LocalDate.of(2024, 1, 8);
+        for (int day = 0; day < 7; day++) {
+            toggle(sport, monday.plusDays(day));
+        }
+        toggle(reading, monday);
+        toggle(reading, monday.plusDays(1));
+        toggle(reading, monday.plusDays(1));
+
+        // When & Then: daily habits meet the week with 7 completions
+        mockMvc.perform(get("/api/habits/weeks")
+                        .param("from", monday.toString())
+                        .param("to", monday.plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].habitId", is(sport.getId().intValue())))
+                .andExpect(jsonPath("$[0].target", is(7)))
+                .andExpect(jsonPath("$[0].weeks[0].completed", is(7)))
+                .andExpect(jsonPath("$[0].weeks[0].targetMet", is(true)))
+                .andExpect(jsonPath("$[1].weeks[0].completed", is(1)))
+                .andExpect(jsonPath("$[1].weeks[0].targetMet", is(false)));
+    }
+
+    @Test
+    void getHabitWeeks_shouldReturn404_whenNotExists() throws Exception {
+        mockMvc.perform(get("/api/habits/999/weeks")
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-01-31"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAllHabitWeeks_shouldReturn400_whenRangeTooLong() throws Exception {
+        mockMvc.perform(get("/api/habits/weeks")
+                        .param("from", "2024-01-01")
+                        .param("to", "2025-06-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getHeatmap_shouldReturnOneBitPerDayOfYear() throws Exception {
+        // Given
+        Habit sport = habitRepository.save(createHabit("Sport", "blue"));
+        Habit reading = habitRepository.save(createHabit("Lesen", "green"));
+        toggle(sport, LocalDate.of(2024, 1, 1));
+        toggle(sport, LocalDate.of(2024, 1, 3));
+        toggle(sport, LocalDate.of(2024, 12, 31));
+        toggle(sport, LocalDate.of(2023, 12, 31));
+
+        // When & Then: 2024 is a leap year, 366 bits in 46 bytes
+        String json = mockMvc.perform(get("/api/habits/heatmap").param("year", "2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.year", is(2024)))
+                .andExpect(jsonPath("$.days", is(366)))
+                .andExpect(jsonPath("$.habits", hasSize(2)))
+                .andExpect(jsonPath("$.habits[0].habitId", is(sport.getId().intValue())))
+                .andExpect(jsonPath("$.habits[1].habitId", is(reading.getId().intValue())))
+                .andReturn().getResponse().getContentAsString();
+
+        byte[] sportBits = Base64.getDecoder().decode(
+                objectMapper.readTree(json).at("/habits/0/bits").asText());
+        byte[] readingBits = Base64.getDecoder().decode(
+                objectMapper.readTree(json).at("/habits/1/bits").asText());
+        assertEquals(46, sportBits.length);
+        assertEquals(0b101, sportBits[0]);
+        assertEquals(1 << 5, sportBits[45]);
+        assertEquals(46, readingBits.length);
+        for (byte b : readingBits) {
+            assertEquals(0, b);
+        }
+    }
+
+    private void toggle(Habit habit, LocalDate date) throws Exception {
+        mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                Map.of("habitId", habit.getId(), "date", date.toString()))))
+                .andExpect(status().isOk());
+    }
+
     private Habit createHabit(String name, String color) {
         Habit habit = new Habit();
         habit.setName(name);
@@ -0,0 +1,153 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.HabitPurgeJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The purge job only runs when a test calls it (see the test application.properties)
+@SpringBootTest(properties = {
+        "habit-tracker.habits.sync-delete-limit=5",
+        "habit-tracker.habits.purge.batch-size=4"
+})
+@AutoConfigureMockMvc
+class HabitDeletionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private HabitPurgeJob purgeJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        purgeJob.purge();
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void deleteHabit_shouldDeleteSmallHabitRightAway() throws Exception {
+        Habit habit = createHabit(5);
+
+        mockMvc.perform(delete("/api/habits/" + habit.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(0, rows("habit", habit));
+        assertEquals(0, rows("habit_entry", habit));
+    }
+
+    @Test
+    void deleteHabit_shouldHideLargeHabitAndPurgeItInTheBackground() throws Exception {
+        Habit habit = createHabit(10);
+        Habit other = createHabit(3);
+
+        mockMvc.perform(delete("/api/habits/" + habit.getId()))
+                .andExpect(status().isOk());
+
+        // Gone for clients, rows still there
+        mockMvc.perform(get("/api/habits/" + habit.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/habits"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(other.getId().intValue())));
+        mockMvc.perform(delete("/api/habits/" + habit.getId()))
+                .andExpect(status().isNotFound());
+        assertEquals(1, rows("habit", habit));
+        assertEquals(10, rows("habit_entry", habit));
+
+        assertEquals(10, purgeJob.purge());
+
+        assertEquals(0, rows("habit", habit));
+        assertEquals(0, rows("habit_entry", habit));
+        assertEquals(3, rows("habit_entry", other));
+    }
+
+    @Test
+    void deleteHabit_shouldHideTheEntriesOfALargeHabitUntilTheyArePurged() throws Exception {
+        Habit habit = createHabit(10);
+        Long entryId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM habit_entry WHERE habit_id = ?", Long.class, habit.getId());
+
+        mockMvc.perform(delete("/api/habits/" + habit.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", "2024-01-01")
+                        .param("endDate", "2024-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/entries/date/2024-01-01"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/entries/habit/" + habit.getId()))
+                .andExpect(jsonPath("$", hasSize(0)));
+        MvcResult export = mockMvc.perform(get("/api/entries/export")
+                        .param("startDate", "2024-01-01")
+                        .param("endDate", "2024-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/sync"))
+                .andExpect(jsonPath("$.entries", hasSize(0)));
+
+        // No tombstone for an entry the client never sees
+        mockMvc.perform(delete("/api/entries/" + entryId))
+                .andExpect(status().isNotFound());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tombstone WHERE entity_id = ? AND entity_type = 'ENTRY'", Integer.class, entryId));
+    }
+
+    private Habit createHabit(int entries) {
+        Habit habit = new Habit();
+        habit.setName("Habit");
+        habit.setColor("blue");
+        habit.setType(Habit.HabitType.DAILY);
+        habit = habitRepository.save(habit);
+        List<HabitEntry> days = new ArrayList<>();
+        for (int day = 0; day < entries; day++) {
+            days.add(new HabitEntry(habit, LocalDate.of(2024, 1, 1).plusDays(day), true));
+        }
+        entryRepository.saveAll(days);
+        return habit;
+    }
+
+    private int rows(String table, Habit habit) {
+        String column = table.equals("habit") ? "id" : "habit_id";
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?",
+                Integer.class, habit.getId());
+    }
+}
@@ -5,23 +5,38 @@ import htw.webtech.habit_tracker.model.Habit;
 import htw.webtech.habit_tracker.model.HabitEntry;
 import htw.webtech.habit_tracker.repository.HabitRepository;
 import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.service.HabitEntryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+// Entries older than the edit window are read-only; every other test writes within it
+@SpringBootTest(properties = "habit-tracker.entries.edit-window-days=400")
 @AutoConfigureMockMvc
 class HabitEntryControllerTest {
 
@@ -37,12 +52,26 @@ class HabitEntryControllerTest {
     @Autowired
     private HabitEntryRepository entryRepository;
 
+    @Autowired
+    private HabitEntryService entryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Habit testHabit;
 
     @BeforeEach
     void setUp() {
         entryRepository.deleteAll();
         habitRepository.deleteAll();
+        // Data is written through the repositories directly, bypassing cache eviction
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
 
         // Create a test habit
         testHabit = new Habit();
@@ -72,6 +101,31 @@ class HabitEntryControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    void getEntriesForHabit_shouldReturnKeysetPages_whenLimitGiven() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        createEntry(testHabit, today.minusDays(2), true);
+        HabitEntry second = createEntry(testHabit, today.minusDays(1), true);
+        createEntry(testHabit, today, false);
+        String cursor = today.minusDays(1) + ":" + second.getId();
+
+        // When & Then
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId()).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].date", is(today.minusDays(2).toString())))
+                .andExpect(jsonPath("$.nextCursor", is(cursor)));
+
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId())
+                        .param("limit", "2")
+                        .param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].date", is(today.toString())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     void getEntriesInRange_shouldReturnEntriesWithinDateRange() throws Exception {
         // Given
@@ -91,6 +145,180 @@ class HabitEntryControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    void getEntriesInRange_shouldReturnNotModified_whenETagMatches() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        createEntry(testHabit, today, true);
+
+        String etag = mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getEntriesInRange_shouldReturnNewETag_afterWrite() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        String etag = mockMvc.perform(get("/api/entries/habit/" + testHabit.getId() + "/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("habitId", testHabit.getId());
+        request.put("date", today.toString());
+        mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId() + "/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void getEntriesInRange_shouldKeepETag_whenAnotherOwnerWrites() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        String etag = mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When
+        String otherHabit = mockMvc.perform(post("/api/habits")
+                        .header("X-User-Id", "42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Other\",\"color\":\"red\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/entries/toggle")
+                        .header("X-User-Id", "42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "habitId", objectMapper.readTree(otherHabit).get("id").asLong(),
+                                "date", today.toString()))))
+                .andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getEntriesInRange_shouldCacheOnlyRangesBeforeTheEditWindow() throws Exception {
+        LocalDate closedEnd = LocalDate.now().minusDays(401);
+        String etag = mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", closedEnd.minusDays(6).toString())
+                        .param("endDate", closedEnd.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=31536000, private"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", closedEnd.minusDays(6).toString())
+                        .param("endDate", closedEnd.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Cache-Control", "max-age=31536000, private"));
+
+        // A range reaching into the edit window can still change
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId() + "/range")
+                        .param("startDate", closedEnd.toString())
+                        .param("endDate", LocalDate.now().toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @Test
+    void getEntriesInRange_shouldReturnNewETag_whenAnEarlierWriteCommitsLate() throws Exception {
+        // Given: a writer that draws its change number first but commits after a later write
+        LocalDate today = LocalDate.now();
+        Habit other = new Habit();
+        other.setName("Other");
+        other.setColor("red");
+        other = habitRepository.save(other);
+        Long slowHabitId = other.getId();
+        CountDownLatch drawn = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slowWriter = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    entryService.toggleEntry(slowHabitId, today);
+                    drawn.countDown();
+                    await(commit);
+                }));
+        await(drawn);
+        mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "habitId", testHabit.getId(), "date", today.toString()))))
+                .andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When
+        commit.countDown();
+        slowWriter.get(10, TimeUnit.SECONDS);
+
+        // Then
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void getEntriesInRange_shouldReturnNewETag_afterHabitDelete() throws Exception {
+        // Given
+        LocalDate day = LocalDate.now().minusYears(1);
+        createEntry(testHabit, day, true);
+        String etag = mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", day.toString())
+                        .param("endDate", day.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When
+        mockMvc.perform(delete("/api/habits/" + testHabit.getId())).andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", day.toString())
+                        .param("endDate", day.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     @Test
     void toggleEntry_shouldCreateNewEntry_whenNotExists() throws Exception {
         // Given
@@ -161,6 +389,45 @@ class HabitEntryControllerTest {
                 .andExpect(jsonPath("$.completed", is(true)));
     }
 
+    @Test
+    void setEntry_shouldOverwriteExistingEntry() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        HabitEntry existing = createEntry(testHabit, today, true);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("habitId", testHabit.getId());
+        request.put("date", today.toString());
+        request.put("completed", false);
+
+        // When & Then
+        mockMvc.perform(post("/api/entries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(existing.getId().intValue())))
+                .andExpect(jsonPath("$.completed", is(false)));
+
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].completed", is(false)));
+    }
+
+    @Test
+    void setEntry_shouldReturnBadRequest_whenHabitNotFound() throws Exception {
+        Map<String, Object> request = new HashMap<>();
+        request.put("habitId", 999L);
+        request.put("date", LocalDate.now().toString());
+        request.put("completed", true);
+
+        mockMvc.perform(post("/api/entries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("Habit not found")));
+    }
+
     @Test
     void getEntriesForDate_shouldReturnEntriesForSpecificDate() throws Exception {
         // Given
@@ -203,9 +470,140 @@ class HabitEntryControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void setEntries_shouldApplyBatchAndReportStatusPerItem() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        createEntry(testHabit, today, true);
+
+        List<Map<String, Object>> request = List.of(
+                Map.of("habitId", testHabit.getId(), "date", today.toString(), "completed", true),
+                Map.of("habitId", testHabit.getId(), "date", today.minusDays(1).toString(), "completed", true),
+                Map.of("habitId", 999L, "date", today.toString(), "completed", true),
+                Map.of("habitId", testHabit.getId(), "date", "not-a-date", "completed", true));
+
+        // When & Then
+        mockMvc.perform(post("/api/entries/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].status", is("UNCHANGED")))
+                .andExpect(jsonPath("$[1].status", is("CREATED")))
+                .andExpect(jsonPath("$[1].entry.completed", is(true)))
+                .andExpect(jsonPath("$[2].status", is("HABIT_NOT_FOUND")))
+                .andExpect(jsonPath("$[3].status", is("INVALID")));
+
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void setEntries_shouldLoadUncachedHabitsInOneStatement() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        createEntry(testHabit, today, true);
+        List<Map<String, Object>> request = new ArrayList<>();
+        request.add(Map.of("habitId", testHabit.getId(), "date", today.toString(), "completed", true));
+        long single = batchStatements(request);
+        for (int i = 0; i < 3; i++) {
+            Habit habit = new Habit();
+            habit.setName("Habit " + i);
+            habit = habitRepository.save(habit);
+            createEntry(habit, today, true);
+            request.add(Map.of("habitId", habit.getId(), "date", today.toString(), "completed", true));
+        }
+        request.add(Map.of("habitId", 999L, "date", today.toString(), "completed", true));
+
+        // When & Then: three more habits and an unknown id cost no extra statement
+        assertEquals(single, batchStatements(request));
+    }
+
+    // Statements prepared by a batch whose habits are not cached yet
+    private long batchStatements(List<Map<String, Object>> request) throws Exception {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(post("/api/entries/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void setEntries_shouldUpdateExistingEntry() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        createEntry(testHabit, today, true);
+
+        List<Map<String, Object>> request = List.of(
+                Map.of("habitId", testHabit.getId(), "date", today.toString(), "completed", false));
+
+        // When & Then
+        mockMvc.perform(post("/api/entries/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is("UPDATED")))
+                .andExpect(jsonPath("$[0].entry.completed", is(false)));
+    }
+
+    @Test
+    void exportEntries_shouldStreamNdjson() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        HabitEntry entry = createEntry(testHabit, today, true);
+        createEntry(testHabit, today.minusDays(10), true); // Outside range
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/entries/export")
+                        .param("startDate", today.minusDays(5).toString())
+                        .param("endDate", today.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":" + entry.getId() + ",\"habitId\":" + testHabit.getId()
+                        + ",\"date\":\"" + today + "\",\"completed\":true}\n"));
+    }
+
+    @Test
+    void exportEntries_shouldStreamCsv() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        HabitEntry entry = createEntry(testHabit, today, false);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/entries/export")
+                        .param("startDate", today.toString())
+                        .param("endDate", today.toString())
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,habitId,date,completed\n"
+                        + entry.getId() + "," + testHabit.getId() + "," + today + ",false\n"));
+    }
+
     private HabitEntry createEntry(Habit habit, LocalDate date, boolean completed) {
         HabitEntry entry = new HabitEntry(habit, date, completed);
         return entryRepository.save(entry);
     }
-}
 
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
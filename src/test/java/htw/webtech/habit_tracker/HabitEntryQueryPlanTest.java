@@ -0,0 +1,159 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that every HabitEntryRepository query runs on an index of the Flyway schema.
+ * The SQL mirrors what Hibernate generates for each method; H2 marks full scans as "tableScan".
+ */
+@SpringBootTest
+class HabitEntryQueryPlanTest {
+
+    private static final String FROM = "2024-03-01";
+    private static final String TO = "2024-03-31";
+
+    // Queries that hide entries of deleted habits join the habit by primary key
+    private static final String VISIBLE = "SELECT e.* FROM habit_entry e JOIN habit h ON h.id = e.habit_id "
+            + "AND h.deleted = FALSE WHERE ";
+
+    // Repository method -> equivalent SQL (habit id 1 stands for any habit). Hibernate adds
+    // owner_id = <current owner> to every query on HabitEntry; owner 0 stands for any owner
+    private static final Map<String, String> QUERIES = Map.ofEntries(
+            Map.entry("findById",
+                    VISIBLE + "e.id = 1 AND e.owner_id = 0"),
+            Map.entry("findByHabitId",
+                    "SELECT * FROM habit_entry WHERE owner_id = 0 AND habit_id = 1"),
+            Map.entry("findByHabitIdAndDateBetween",
+                    "SELECT * FROM habit_entry WHERE owner_id = 0 AND habit_id = 1 AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "'"),
+            Map.entry("findByHabitIdAndDate",
+                    "SELECT * FROM habit_entry WHERE owner_id = 0 AND habit_id = 1 AND date = DATE '" + FROM + "'"),
+            Map.entry("findByHabitIdOrderByDateAscIdAsc",
+                    "SELECT * FROM habit_entry WHERE owner_id = 0 AND habit_id = 1 ORDER BY date, id FETCH FIRST 51 ROWS ONLY"),
+            Map.entry("findByHabitIdAfter",
+                    VISIBLE + "e.owner_id = 0 AND e.habit_id = 1 AND (e.date, e.id) > (DATE '" + FROM + "', 5) "
+                            + "ORDER BY e.date, e.id FETCH FIRST 51 ROWS ONLY"),
+            Map.entry("findByDateBetween",
+                    VISIBLE + "e.owner_id = 0 AND e.date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "'"),
+            Map.entry("findByDate",
+                    VISIBLE + "e.owner_id = 0 AND e.date = DATE '" + FROM + "'"),
+            Map.entry("findAllOfVisibleHabits",
+                    VISIBLE + "e.owner_id = 0"),
+            Map.entry("findByHabitIdInAndDateIn",
+                    "SELECT * FROM habit_entry WHERE owner_id = 0 AND habit_id IN (1, 2) AND date IN (DATE '" + FROM + "', DATE '" + TO + "')"),
+            Map.entry("findByChangeSeqGreaterThanOrderByChangeSeq",
+                    VISIBLE + "e.owner_id = 0 AND e.change_seq > 1000 ORDER BY e.change_seq"),
+            Map.entry("findCompletedDates",
+                    "SELECT date FROM habit_entry WHERE owner_id = 0 AND habit_id = 1 AND completed = TRUE ORDER BY date"),
+            Map.entry("findCompletedDatesBetween",
+                    "SELECT date FROM habit_entry WHERE owner_id = 0 AND habit_id = 1 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "' ORDER BY date"),
+            Map.entry("findCompletedDaysBetween",
+                    "SELECT habit_id, date FROM habit_entry WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "'"),
+            Map.entry("streamCompletedDaysBetween",
+                    "SELECT habit_id, date FROM habit_entry WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "'"),
+            Map.entry("findCompletedDaysWithArchiveBetween",
+                    "SELECT habit_id, date FROM habit_entry WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "' "
+                            + "UNION ALL SELECT habit_id, date FROM habit_entry_archive WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "'"),
+            Map.entry("streamCompletedDaysWithArchiveBetween",
+                    "SELECT habit_id, date FROM habit_entry WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "' "
+                            + "UNION ALL SELECT habit_id, date FROM habit_entry_archive WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "'"),
+            Map.entry("streamByDateBetween",
+                    VISIBLE + "e.owner_id = 0 AND e.date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "' ORDER BY e.date, e.id"),
+            Map.entry("deleteByHabitId",
+                    "DELETE FROM habit_entry WHERE owner_id = 0 AND habit_id = 1"),
+            Map.entry("findIdsByHabitId",
+                    "SELECT id FROM habit_entry WHERE owner_id = 0 AND habit_id = 1 FETCH FIRST 1000 ROWS ONLY"),
+            // Compaction runs for all owners, without owner filter
+            Map.entry("findByCompletedFalseOrderById",
+                    "SELECT * FROM habit_entry WHERE completed = FALSE ORDER BY id FETCH FIRST 500 ROWS ONLY"),
+            // Archival runs for all owners, without owner filter
+            Map.entry("findIdsBefore",
+                    "SELECT id FROM habit_entry WHERE date < DATE '" + FROM + "' ORDER BY date, id FETCH FIRST 1000 ROWS ONLY"),
+            // HabitEntryAggregateRepository, without habit filter
+            Map.entry("countCompletedByWeek",
+                    "SELECT habit_id, DATEADD('DAY', 1 - ISO_DAY_OF_WEEK(date), date) AS week_start, COUNT(*) "
+                            + "FROM (SELECT habit_id, date FROM habit_entry WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "' "
+                            + "UNION ALL SELECT habit_id, date FROM habit_entry_archive WHERE owner_id = 0 AND completed = TRUE "
+                            + "AND date BETWEEN DATE '" + FROM + "' AND DATE '" + TO + "') completed_day "
+                            + "WHERE habit_id IN (SELECT id FROM habit WHERE owner_id = 0 AND deleted = FALSE) "
+                            + "GROUP BY habit_id, DATEADD('DAY', 1 - ISO_DAY_OF_WEEK(date), date)"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+
+        // Enough rows that a full scan is never the cheapest plan
+        LocalDate start = LocalDate.parse(FROM).minusDays(100);
+        List<HabitEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Habit habit = new Habit();
+            habit.setName("Habit " + i);
+            habit = habitRepository.save(habit);
+            for (int day = 0; day < 200; day++) {
+                HabitEntry entry = new HabitEntry(habit, start.plusDays(day), day % 3 != 0);
+                entry.setChangeSeq((long) day);
+                entries.add(entry);
+            }
+        }
+        entryRepository.saveAll(entries);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void everyRepositoryQuery_shouldHaveAPlanCheck() {
+        TreeSet<String> methods = Arrays.stream(HabitEntryRepository.class.getDeclaredMethods())
+                .filter(method -> !method.isDefault() && !method.isSynthetic())
+                .map(Method::getName)
+                .collect(Collectors.toCollection(TreeSet::new));
+        methods.removeAll(QUERIES.keySet());
+        assertTrue(methods.isEmpty(), "Add the SQL of these queries to QUERIES: " + methods);
+    }
+
+    @Test
+    void repositoryQueries_shouldNotScanTheWholeTable() {
+        List<String> failures = new ArrayList<>();
+        QUERIES.forEach((method, sql) -> {
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+            if (plan.contains("tableScan")) {
+                failures.add(method + ":\n" + plan);
+            }
+        });
+        assertTrue(failures.isEmpty(), "Full table scans:\n" + String.join("\n\n", failures));
+    }
+}
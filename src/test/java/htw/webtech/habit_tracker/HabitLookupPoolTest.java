@@ -0,0 +1,73 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Without a replica, a cold habit lookup inside a read-only transaction must not need a second
+// connection: with one connection left it would wait for the connection its own request holds
+@SpringBootTest(properties = {
+        // Flyway needs two connections at startup, the test holds one of them
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=250"
+})
+@AutoConfigureMockMvc
+class HabitLookupPoolTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void weeks_shouldLoadAnUncachedHabitOnTheRequestsConnection() throws Exception {
+        Habit habit = new Habit();
+        habit.setName("Reading");
+        habit.setColor("blue");
+        habit.setType(Habit.HabitType.WEEKLY);
+        habit.setTargetPerWeek(3);
+        Long id = habitRepository.save(habit).getId();
+
+        Connection held = dataSource.getConnection();
+        try {
+            mockMvc.perform(get("/api/habits/" + id + "/weeks")
+                            .param("from", "2024-01-01")
+                            .param("to", "2024-01-07"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.habitId", is(id.intValue())));
+        } finally {
+            held.close();
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package htw.webtech.habit_tracker;
 
+import htw.webtech.habit_tracker.config.OwnerTenantResolver;
 import htw.webtech.habit_tracker.model.Habit;
 import htw.webtech.habit_tracker.repository.HabitRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -13,7 +15,9 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+// The JPA slice does not scan components, but @TenantId entities need the tenant resolver
 @DataJpaTest
+@Import(OwnerTenantResolver.class)
 class HabitRepositoryTest {
 
     @Autowired
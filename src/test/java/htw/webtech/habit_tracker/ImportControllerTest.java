@@ -0,0 +1,195 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.EntryImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "habit-tracker.import.chunk-size=2")
+@AutoConfigureMockMvc
+class ImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private EntryImportService importService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Habit reading;
+    private Habit running;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        reading = createHabit("Reading, 20 pages");
+        running = createHabit("Running");
+    }
+
+    @Test
+    void importEntries_shouldImportCsvByHabitName() throws Exception {
+        String csv = "habit,date,completed\n"
+                + "\"Reading, 20 pages\",2024-01-01,true\n"
+                + "Running,2024-01-02,\n"
+                + "Swimming,2024-01-03,true\n"
+                + "Running,2024-13-01,true\n";
+
+        String response = runImport("csv", "text/csv", csv);
+
+        assertEquals("{\"processed\":2,\"imported\":2,\"unchanged\":0,\"failed\":0}\n"
+                + "{\"line\":4,\"error\":\"Habit not found: Swimming\"}\n"
+                + "{\"line\":5,\"error\":\"Invalid date: 2024-13-01\"}\n"
+                + "{\"processed\":4,\"imported\":2,\"unchanged\":0,\"failed\":2,\"done\":true}\n", response);
+        assertTrue(entryRepository.findByHabitIdAndDate(reading.getId(), LocalDate.of(2024, 1, 1))
+                .orElseThrow().isCompleted());
+        assertTrue(entryRepository.findByHabitIdAndDate(running.getId(), LocalDate.of(2024, 1, 2))
+                .orElseThrow().isCompleted());
+    }
+
+    @Test
+    void importEntries_shouldUpsertNdjsonInChunks() throws Exception {
+        entryRepository.save(new HabitEntry(running, LocalDate.of(2024, 1, 1), true));
+        String ndjson = "{\"habitId\":" + running.getId() + ",\"date\":\"2024-01-01\",\"completed\":false}\n"
+                + "{\"habitId\":" + running.getId() + ",\"date\":\"2024-01-02\"}\n"
+                + "{\"habitId\":" + running.getId() + ",\"date\":\"2024-01-02\"}\n"
+                + "{\"habitId\":999999,\"date\":\"2024-01-03\"}\n"
+                + "not json\n";
+
+        String response = runImport("ndjson", "application/x-ndjson", ndjson);
+
+        // Line 3 repeats line 2, so it finds the row written by the previous chunk
+        assertEquals("{\"processed\":2,\"imported\":2,\"unchanged\":0,\"failed\":0}\n"
+                + "{\"line\":4,\"error\":\"Habit not found\"}\n"
+                + "{\"processed\":4,\"imported\":2,\"unchanged\":1,\"failed\":1}\n"
+                + "{\"line\":5,\"error\":\"Invalid JSON\"}\n"
+                + "{\"processed\":5,\"imported\":2,\"unchanged\":1,\"failed\":2,\"done\":true}\n", response);
+        assertFalse(entryRepository.findByHabitIdAndDate(running.getId(), LocalDate.of(2024, 1, 1))
+                .orElseThrow().isCompleted());
+        assertEquals(2, entryRepository.findByHabitId(running.getId()).size());
+    }
+
+    @Test
+    void importEntries_shouldRecomputeStatsAfterTheLastChunk() throws Exception {
+        String csv = "habitId,date\n"
+                + running.getId() + ",2024-01-01\n"
+                + running.getId() + ",2024-01-02\n"
+                + running.getId() + ",2024-01-03\n";
+
+        runImport("csv", "text/csv", csv);
+
+        mockMvc.perform(get("/api/habits/" + running.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCompletions").value(3))
+                .andExpect(jsonPath("$.longestStreak").value(3));
+    }
+
+    @Test
+    void importEntries_shouldRecomputeStats_whenTheUploadBreaksOff() throws Exception {
+        // Given: stats that exist before the import
+        mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":" + running.getId() + ",\"date\":\"2024-01-10\"}"))
+                .andExpect(status().isOk());
+        String csv = "habitId,date\n"
+                + running.getId() + ",2024-01-01\n"
+                + running.getId() + ",2024-01-02\n"
+                + running.getId() + ",2024-01-03\n";
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new SequenceInputStream(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), broken), StandardCharsets.UTF_8));
+
+        // When: the first chunk is committed before the upload breaks off
+        assertThrows(IOException.class, () -> importService.importEntries(reader, EntryImportService.Format.CSV,
+                false, new EntryImportService.Listener() {
+                    @Override
+                    public void onError(EntryImportService.RowError error) {
+                    }
+
+                    @Override
+                    public void onProgress(EntryImportService.Progress progress) {
+                    }
+                }));
+
+        // Then
+        assertEquals(3, entryRepository.findByHabitId(running.getId()).size());
+        mockMvc.perform(get("/api/habits/" + running.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCompletions").value(3));
+    }
+
+    @Test
+    void importEntries_shouldRejectCsvWithoutDateColumn() throws Exception {
+        String response = runImport("csv", "text/csv", "habit,completed\nRunning,true\n");
+
+        assertEquals("{\"line\":1,\"error\":\"CSV header needs the columns habitId or habit, and date\"}\n"
+                + "{\"processed\":0,\"imported\":0,\"unchanged\":0,\"failed\":0,\"done\":true}\n", response);
+    }
+
+    @Test
+    void importEntries_shouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(post("/api/import").param("format", "xml").content("<entries/>"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String runImport(String format, String contentType, String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/import")
+                        .param("format", format)
+                        .contentType(contentType)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+    private Habit createHabit(String name) {
+        Habit habit = new Habit();
+        habit.setName(name);
+        habit.setColor("blue");
+        habit.setType(Habit.HabitType.DAILY);
+        return habitRepository.save(habit);
+    }
+}
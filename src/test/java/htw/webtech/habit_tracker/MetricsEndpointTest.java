@@ -0,0 +1,71 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    private Habit testHabit;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+
+        testHabit = new Habit();
+        testHabit.setName("Test Habit");
+        testHabit.setColor("blue");
+        testHabit = habitRepository.save(testHabit);
+    }
+
+    @Test
+    void prometheus_shouldExposeEndpointRepositoryAndPoolMetrics() throws Exception {
+        // Given
+        String date = LocalDate.now().toString();
+        mockMvc.perform(post("/api/entries/toggle")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + date + "\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/entries")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + date + "\",\"completed\":false}"))
+                .andExpect(status().isOk());
+
+        // When & Then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("uri=\"/api/entries/toggle\"")))
+                .andExpect(content().string(containsString("uri=\"/api/entries\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+                .andExpect(content().string(containsString("hibernate_statements")))
+                .andExpect(content().string(containsString("hikaricp_connections")));
+    }
+}
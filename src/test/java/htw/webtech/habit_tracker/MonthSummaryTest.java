@@ -0,0 +1,162 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.model.HabitMonthSummary;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitMonthSummaryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.MonthSummaryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "habit-tracker.entries.rollup.min-range-days=60")
+@AutoConfigureMockMvc
+class MonthSummaryTest {
+
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private HabitMonthSummaryRepository summaryRepository;
+
+    @Autowired
+    private MonthSummaryService monthSummaries;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Habit testHabit;
+
+    @BeforeEach
+    void setUp() {
+        summaryRepository.deleteAll();
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        testHabit = new Habit();
+        testHabit.setName("Test Habit");
+        testHabit.setColor("blue");
+        testHabit.setType(Habit.HabitType.DAILY);
+        testHabit = habitRepository.save(testHabit);
+    }
+
+    @Test
+    void toggle_shouldSetAndClearTheDayBit() throws Exception {
+        toggle(MARCH.withDayOfMonth(1));
+        toggle(MARCH.withDayOfMonth(31));
+        assertEquals(1 | 1 << 30, summary(MARCH).getMask());
+        assertEquals(2, summary(MARCH).getCompletedDays());
+
+        toggle(MARCH.withDayOfMonth(31));
+        assertEquals(1, summary(MARCH).getMask());
+        assertEquals(1, summary(MARCH).getCompletedDays());
+    }
+
+    @Test
+    void setAndDelete_shouldUpdateTheMask() throws Exception {
+        String response = mockMvc.perform(post("/api/entries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"2024-03-05\",\"completed\":true}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(summary(MARCH).isCompleted(5));
+
+        long id = Long.parseLong(response.replaceAll(".*\"id\":(\\d+).*", "$1"));
+        mockMvc.perform(delete("/api/entries/" + id))
+                .andExpect(status().isOk());
+        assertFalse(summary(MARCH).isCompleted(5));
+        assertEquals(0, summary(MARCH).getCompletedDays());
+    }
+
+    @Test
+    void rebuild_shouldBackfillFromEntries() {
+        entryRepository.save(new HabitEntry(testHabit, MARCH.withDayOfMonth(2), true));
+        entryRepository.save(new HabitEntry(testHabit, MARCH.withDayOfMonth(3), false));
+        entryRepository.save(new HabitEntry(testHabit, MARCH.plusMonths(1), true));
+
+        assertEquals(1, monthSummaries.rebuild());
+
+        assertEquals(1 << 1, summary(MARCH).getMask());
+        assertEquals(1, summary(MARCH.plusMonths(1)).getMask());
+    }
+
+    @Test
+    void longRangeReads_shouldAnswerFromTheRollup() throws Exception {
+        toggle(MARCH.withDayOfMonth(2));
+        toggle(MARCH.plusMonths(1).withDayOfMonth(1));
+        toggle(MARCH.plusMonths(1).withDayOfMonth(2));
+
+        // The rollup alone answers; entries written behind its back do not show up
+        entryRepository.save(new HabitEntry(testHabit, MARCH.withDayOfMonth(20), true));
+
+        char[] expected = "0".repeat(60).toCharArray();
+        expected[1] = '1';
+        expected[31] = '1';
+        expected[32] = '1';
+        mockMvc.perform(get("/api/dashboard")
+                        .param("start", MARCH.toString())
+                        .param("end", MARCH.plusDays(59).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habits[0].days", is(new String(expected))));
+        mockMvc.perform(get("/api/habits/" + testHabit.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCompletions", is(3)))
+                .andExpect(jsonPath("$.longestStreak", is(2)));
+    }
+
+    @Test
+    void shortRangeReads_shouldUseTheEntries() throws Exception {
+        entryRepository.save(new HabitEntry(testHabit, MARCH.withDayOfMonth(2), true));
+
+        mockMvc.perform(get("/api/dashboard")
+                        .param("start", MARCH.toString())
+                        .param("end", MARCH.plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habits[0].days", is("0100000")));
+    }
+
+    @Test
+    void deleteHabit_shouldDeleteSummaries() throws Exception {
+        toggle(MARCH);
+
+        mockMvc.perform(delete("/api/habits/" + testHabit.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(0, summaryRepository.count());
+    }
+
+    private ResultActions toggle(LocalDate date) throws Exception {
+        return mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + date + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private HabitMonthSummary summary(LocalDate monthStart) {
+        return summaryRepository.findById(new HabitMonthSummary.Key(testHabit.getId(), monthStart)).orElseThrow();
+    }
+}
@@ -0,0 +1,144 @@
+package htw.webtech.habit_tracker;
+
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Two independent H2 databases stand in for primary and replica; nothing is replicated,
+// so the data a request sees shows which one it was routed to
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "habit-tracker.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "habit-tracker.datasource.read-your-writes-ms=60000"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+
+    private static final String HABIT_JSON = "{\"name\":\"Sport\",\"color\":\"blue\",\"type\":\"DAILY\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        // Flyway only migrates the primary
+        Flyway.configure()
+                .dataSource(replicaDataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (JdbcTemplate db : new JdbcTemplate[] {primary, replica}) {
+            db.update("DELETE FROM habit_entry");
+            db.update("DELETE FROM habit_stats");
+            db.update("DELETE FROM habit");
+        }
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void writes_shouldGoToPrimary() throws Exception {
+        mockMvc.perform(post("/api/habits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(HABIT_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Set-Cookie", startsWith("primary-until=")));
+
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM habit", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM habit", Integer.class));
+    }
+
+    @Test
+    void readOnlyReads_shouldGoToReplica() throws Exception {
+        replica.update("INSERT INTO habit (name, color, type) VALUES ('Nur im Replica', 'green', 'DAILY')");
+
+        mockMvc.perform(get("/api/habits").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Nur im Replica")));
+    }
+
+    @Test
+    void readsAfterOwnWrite_shouldGoToPrimary() throws Exception {
+        String setCookie = mockMvc.perform(post("/api/habits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(HABIT_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Set-Cookie");
+        String value = setCookie.substring("primary-until=".length(), setCookie.indexOf(';'));
+
+        // Another client still reads the (not yet replicated) replica
+        mockMvc.perform(get("/api/habits").param("limit", "10"))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+        // The writing client sees its own habit
+        mockMvc.perform(get("/api/habits").param("limit", "10")
+                        .cookie(new Cookie("primary-until", value)))
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Sport")));
+    }
+
+    @Test
+    void cachedHabitLookups_shouldReadPrimary() throws Exception {
+        primary.update("INSERT INTO habit (name, color, type) VALUES ('Sport', 'blue', 'DAILY')");
+
+        mockMvc.perform(get("/api/habits"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void cachedHabitLookups_shouldReadPrimary_insideReadOnlyTransactions() throws Exception {
+        primary.update("INSERT INTO habit (name, color, type) VALUES ('Sport', 'blue', 'DAILY')");
+        Long id = primary.queryForObject("SELECT id FROM habit", Long.class);
+
+        // The weekly progress runs read-only on the replica, which does not have the habit yet
+        mockMvc.perform(get("/api/habits/" + id + "/weeks")
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-01-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habitId", is(id.intValue())));
+    }
+
+    @Test
+    void etag_shouldComeFromTheDatabaseThatServedTheBody() throws Exception {
+        // The primary is ahead of the replica
+        primary.update("INSERT INTO habit (name, color, type, change_seq) VALUES ('Sport', 'blue', 'DAILY', 42)");
+
+        mockMvc.perform(get("/api/entries/range")
+                        .param("startDate", "2024-01-01")
+                        .param("endDate", "2024-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+    }
+}
@@ -0,0 +1,128 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.config.ShardRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Three independent H2 databases as shards; Flyway migrates each of them
+@SpringBootTest(properties = {
+        "habit-tracker.sharding.enabled=true",
+        "habit-tracker.sharding.shards.a.url=jdbc:h2:mem:shard-a;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "habit-tracker.sharding.shards.b.url=jdbc:h2:mem:shard-b;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "habit-tracker.sharding.shards.c.url=jdbc:h2:mem:shard-c;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@AutoConfigureMockMvc
+class ShardRoutingTest {
+
+    private static final String HABIT_JSON = "{\"name\":\"Sport\",\"color\":\"blue\",\"type\":\"DAILY\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShardRoutingDataSource shards;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        for (String shard : shards.shardNames()) {
+            JdbcTemplate db = shard(shard);
+            db.update("DELETE FROM habit_entry");
+            db.update("DELETE FROM habit_stats");
+            db.update("DELETE FROM habit");
+        }
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void createHabit_shouldOnlyWriteToTheOwnersShard() throws Exception {
+        for (long owner = 1; owner <= 30; owner++) {
+            createHabit(owner);
+        }
+
+        int total = 0;
+        for (String shard : shards.shardNames()) {
+            JdbcTemplate db = shard(shard);
+            for (long owner = 1; owner <= 30; owner++) {
+                int expected = shard.equals(shards.shardFor(owner)) ? 1 : 0;
+                assertEquals(expected, db.queryForObject(
+                        "SELECT COUNT(*) FROM habit WHERE owner_id = ?", Integer.class, owner));
+            }
+            total += db.queryForObject("SELECT COUNT(*) FROM habit", Integer.class);
+        }
+        assertEquals(30, total);
+    }
+
+    @Test
+    void getHabits_shouldOnlyReturnTheOwnersHabits() throws Exception {
+        long owner = 1;
+        long neighbour = ownerOnSameShardAs(owner);
+        createHabit(owner);
+        createHabit(neighbour);
+        createHabit(neighbour);
+
+        mockMvc.perform(get("/api/habits").header("X-User-Id", owner))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", containsString("X-User-Id")))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/api/habits").header("X-User-Id", neighbour))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void getHabitById_shouldNotFindOtherOwnersHabit() throws Exception {
+        long owner = 1;
+        long neighbour = ownerOnSameShardAs(owner);
+        long id = createHabit(owner);
+
+        mockMvc.perform(get("/api/habits/" + id).header("X-User-Id", owner))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/habits/" + id).header("X-User-Id", neighbour))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void invalidOwnerHeader_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/habits").header("X-User-Id", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long createHabit(long owner) throws Exception {
+        String response = mockMvc.perform(post("/api/habits")
+                        .header("X-User-Id", owner)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(HABIT_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(response.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    // Owners on one shard share the id sequence, so ids are comparable
+    private long ownerOnSameShardAs(long owner) {
+        String shard = shards.shardFor(owner);
+        for (long other = owner + 1; ; other++) {
+            if (shards.shardFor(other).equals(shard)) {
+                return other;
+            }
+        }
+    }
+
+    private JdbcTemplate shard(String name) {
+        return new JdbcTemplate(shards.getResolvedDataSources().get(name));
+    }
+}
@@ -0,0 +1,143 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.EntryCompactionJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "habit-tracker.entries.sparse=true",
+        "habit-tracker.entries.compaction.enabled=true",
+        "habit-tracker.entries.compaction.batch-size=2",
+        // Run explicitly by the tests
+        "habit-tracker.entries.compaction.initial-delay-ms=3600000"
+})
+@AutoConfigureMockMvc
+class SparseEntryStorageTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private EntryCompactionJob compactionJob;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Habit testHabit;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        testHabit = new Habit();
+        testHabit.setName("Test Habit");
+        testHabit.setColor("blue");
+        testHabit = habitRepository.save(testHabit);
+    }
+
+    @Test
+    void toggle_shouldDeleteEntry_whenUnchecked() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        toggle(today).andExpect(jsonPath("$.completed", is(true)));
+
+        // When
+        toggle(today).andExpect(jsonPath("$.completed", is(false)));
+
+        // Then
+        assertTrue(entryRepository.findByHabitIdAndDate(testHabit.getId(), today).isEmpty());
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId()))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/habits/" + testHabit.getId() + "/stats"))
+                .andExpect(jsonPath("$.totalCompletions", is(0)));
+    }
+
+    @Test
+    void setEntry_shouldNotCreateEntry_whenNotCompleted() throws Exception {
+        // When
+        mockMvc.perform(post("/api/entries")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + LocalDate.now()
+                        + "\",\"completed\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed", is(false)));
+
+        // Then
+        assertEquals(0, entryRepository.count());
+    }
+
+    @Test
+    void batch_shouldDeleteUncheckedEntries() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        toggle(today);
+        toggle(today.minusDays(1));
+
+        // When
+        mockMvc.perform(post("/api/entries/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + today + "\",\"completed\":false},"
+                        + "{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + today.minusDays(2)
+                        + "\",\"completed\":false}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is("UPDATED")))
+                .andExpect(jsonPath("$[1].status", is("UNCHANGED")));
+
+        // Then
+        List<HabitEntry> entries = entryRepository.findByHabitId(testHabit.getId());
+        assertEquals(1, entries.size());
+        assertEquals(today.minusDays(1), entries.get(0).getDate());
+    }
+
+    @Test
+    void compaction_shouldPurgeUncheckedEntriesInBatches() {
+        // Given - rows written before sparse storage was enabled
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 5; i++) {
+            entryRepository.save(new HabitEntry(testHabit, today.minusDays(i), i == 0));
+        }
+
+        // When
+        int deleted = compactionJob.compact();
+
+        // Then
+        assertEquals(4, deleted);
+        List<HabitEntry> entries = entryRepository.findByHabitId(testHabit.getId());
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).isCompleted());
+    }
+
+    private ResultActions toggle(LocalDate date) throws Exception {
+        return mockMvc.perform(post("/api/entries/toggle")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + date + "\"}"))
+                .andExpect(status().isOk());
+    }
+}
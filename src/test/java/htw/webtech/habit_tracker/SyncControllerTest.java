@@ -0,0 +1,127 @@
+package htw.webtech.habit_tracker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Without the overlap a delta holds exactly the changes after the cursor, see SyncOverlapTest
+@SpringBootTest(properties = "habit-tracker.sync.overlap=0")
+@AutoConfigureMockMvc
+class SyncControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+    }
+
+    @Test
+    void sync_shouldReturnFullSnapshot_whenNoCursorGiven() throws Exception {
+        // Given
+        Habit habit = createHabit("Sport");
+        toggle(habit.getId(), LocalDate.now());
+
+        // When & Then
+        mockMvc.perform(get("/api/sync"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.full", is(true)))
+                .andExpect(jsonPath("$.habits", hasSize(1)))
+                .andExpect(jsonPath("$.entries", hasSize(1)))
+                .andExpect(jsonPath("$.cursor", greaterThan(0)));
+    }
+
+    @Test
+    void sync_shouldReturnOnlyChangesAfterCursor() throws Exception {
+        // Given
+        Habit sport = createHabit("Sport");
+        Habit lesen = createHabit("Lesen");
+        toggle(sport.getId(), LocalDate.now());
+        long cursor = currentCursor();
+
+        // When
+        toggle(lesen.getId(), LocalDate.now());
+
+        // Then
+        mockMvc.perform(get("/api/sync").param("since", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.full", is(false)))
+                .andExpect(jsonPath("$.habits", hasSize(0)))
+                .andExpect(jsonPath("$.entries", hasSize(1)))
+                .andExpect(jsonPath("$.entries[0].habitId", is(lesen.getId().intValue())))
+                .andExpect(jsonPath("$.cursor", greaterThan((int) cursor)));
+    }
+
+    @Test
+    void sync_shouldReportDeletedHabitsAndEntries() throws Exception {
+        // Given
+        Habit sport = createHabit("Sport");
+        Habit lesen = createHabit("Lesen");
+        JsonNode entry = toggle(lesen.getId(), LocalDate.now());
+        long cursor = currentCursor();
+
+        // When
+        mockMvc.perform(delete("/api/habits/" + sport.getId())).andExpect(status().isOk());
+        mockMvc.perform(delete("/api/entries/" + entry.get("id").asLong())).andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/sync").param("since", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedHabitIds", contains(sport.getId().intValue())))
+                .andExpect(jsonPath("$.deletedEntryIds", contains(entry.get("id").asInt())));
+    }
+
+    private Habit createHabit(String name) throws Exception {
+        Habit habit = new Habit();
+        habit.setName(name);
+        habit.setColor("blue");
+        String response = mockMvc.perform(post("/api/habits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(habit)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, Habit.class);
+    }
+
+    private JsonNode toggle(Long habitId, LocalDate date) throws Exception {
+        String response = mockMvc.perform(post("/api/entries/toggle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("habitId", habitId, "date", date.toString()))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private long currentCursor() throws Exception {
+        String response = mockMvc.perform(get("/api/sync"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("cursor").asLong();
+    }
+}
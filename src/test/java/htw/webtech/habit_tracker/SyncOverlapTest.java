@@ -0,0 +1,99 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.HabitEntryService;
+import htw.webtech.habit_tracker.service.SyncService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A write that commits after a sync read with a lower sequence number than the returned cursor
+@SpringBootTest
+class SyncOverlapTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private HabitEntryService entryService;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+    }
+
+    @Test
+    void changesSince_shouldDeliverAWriteThatCommitsAfterALaterOne() throws Exception {
+        // Given
+        Habit slow = createHabit("Slow");
+        Habit fast = createHabit("Fast");
+        long cursor = syncService.changesSince(null).cursor();
+
+        // When: the slow writer draws its number first but commits after the fast writer and a sync
+        CountDownLatch drawn = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slowWriter = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    entryService.toggleEntry(slow.getId(), DAY);
+                    drawn.countDown();
+                    await(commit);
+                }));
+        await(drawn);
+        entryService.toggleEntry(fast.getId(), DAY);
+        SyncService.Changes beforeCommit = syncService.changesSince(cursor);
+        commit.countDown();
+        slowWriter.get(10, TimeUnit.SECONDS);
+        SyncService.Changes afterCommit = syncService.changesSince(beforeCommit.cursor());
+
+        // Then
+        assertEquals(List.of(fast.getId()), habitIds(beforeCommit.entries()));
+        assertTrue(habitIds(afterCommit.entries()).contains(slow.getId()));
+        assertTrue(afterCommit.cursor() >= beforeCommit.cursor());
+    }
+
+    private static List<Long> habitIds(List<HabitEntry> entries) {
+        return entries.stream().map(entry -> entry.getHabit().getId()).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Habit createHabit(String name) {
+        Habit habit = new Habit();
+        habit.setName(name);
+        habit.setColor("blue");
+        habit.setType(Habit.HabitType.DAILY);
+        return habitRepository.save(habit);
+    }
+}
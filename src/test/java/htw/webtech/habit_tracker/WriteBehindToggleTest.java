@@ -0,0 +1,112 @@
+package htw.webtech.habit_tracker;
+
+import htw.webtech.habit_tracker.model.Habit;
+import htw.webtech.habit_tracker.model.HabitEntry;
+import htw.webtech.habit_tracker.repository.HabitEntryRepository;
+import htw.webtech.habit_tracker.repository.HabitRepository;
+import htw.webtech.habit_tracker.service.ToggleBufferFlusher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "habit-tracker.entries.write-behind.enabled=true",
+        // Flushed explicitly by the tests
+        "habit-tracker.entries.write-behind.flush-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class WriteBehindToggleTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitEntryRepository entryRepository;
+
+    @Autowired
+    private ToggleBufferFlusher flusher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Habit testHabit;
+
+    @BeforeEach
+    void setUp() {
+        flusher.flush();
+        entryRepository.deleteAll();
+        habitRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        testHabit = new Habit();
+        testHabit.setName("Test Habit");
+        testHabit.setColor("blue");
+        testHabit = habitRepository.save(testHabit);
+    }
+
+    @Test
+    void toggle_shouldCollapseRepeatedTogglesIntoOneWrite() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+
+        // When
+        toggle(today).andExpect(jsonPath("$.completed", is(true)));
+        toggle(today).andExpect(jsonPath("$.completed", is(false)));
+        toggle(today).andExpect(jsonPath("$.completed", is(true)));
+
+        // Then - not written yet, but visible to reads
+        assertTrue(entryRepository.findByHabitIdAndDate(testHabit.getId(), today).isEmpty());
+        mockMvc.perform(get("/api/entries/habit/" + testHabit.getId() + "/range")
+                .param("startDate", today.toString())
+                .param("endDate", today.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].completed", is(true)));
+
+        flusher.flush();
+        Optional<HabitEntry> saved = entryRepository.findByHabitIdAndDate(testHabit.getId(), today);
+        assertTrue(saved.isPresent());
+        assertTrue(saved.get().isCompleted());
+    }
+
+    @Test
+    void toggle_shouldStartFromPersistedState() throws Exception {
+        // Given
+        LocalDate today = LocalDate.now();
+        entryRepository.save(new HabitEntry(testHabit, today, true));
+
+        // When
+        toggle(today).andExpect(jsonPath("$.completed", is(false)));
+
+        // Then
+        mockMvc.perform(get("/api/entries/date/" + today))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].completed", is(false)));
+        flusher.flush();
+        assertFalse(entryRepository.findByHabitIdAndDate(testHabit.getId(), today).get().isCompleted());
+    }
+
+    private ResultActions toggle(LocalDate date) throws Exception {
+        return mockMvc.perform(post("/api/entries/toggle")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"habitId\":" + testHabit.getId() + ",\"date\":\"" + date + "\"}"))
+                .andExpect(status().isOk());
+    }
+}